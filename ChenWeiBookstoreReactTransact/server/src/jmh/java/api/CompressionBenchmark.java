@@ -0,0 +1,66 @@
+package api;
+
+import business.book.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzipping a serialized category book list with CompressingOutputStream's
+ * pooled Deflaters against a new GZIPOutputStream per response (the baseline,
+ * which allocates and frees a native Deflater each time). Run with -prof gc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"4", "100"})
+    public int bookCount;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < bookCount; i++) {
+            String description = ("Book " + i + " is a story about things that happen to people. ").repeat(16);
+            books.add(new Book(1001 + i, "Title " + i, "Author " + i, description, 799, 4.5, true, false, 1001));
+        }
+        body = new ObjectMapper().writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] pooledDeflater() {
+        return CompressingOutputStream.compress(body, CompressingOutputStream.GZIP, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    @Benchmark
+    public byte[] gzipOutputStreamBaseline() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,72 @@
+package api;
+
+import business.book.Book;
+import business.customer.Customer;
+import business.order.LineItem;
+import business.order.Order;
+import business.order.OrderDetails;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the API's largest payloads: a category's book list
+ * and the OrderDetails returned after checkout. Books carry full-length
+ * 1000-character descriptions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"4", "100"})
+    public int bookCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Book> books;
+    private OrderDetails orderDetails;
+
+    @Setup
+    public void setUp() {
+        String description = "x".repeat(1000);
+        books = new ArrayList<>();
+        List<LineItem> lineItems = new ArrayList<>();
+        for (int i = 0; i < bookCount; i++) {
+            long bookId = 1001 + i;
+            books.add(new Book(bookId, "Title " + i, "Author " + i, description, 799, 4.5, true, false, 1001));
+            lineItems.add(new LineItem(bookId, 1, 1));
+        }
+        Order order = new Order(1, 5000, new Date(), 123456789, 1);
+        Customer customer = new Customer(1, "Sophia Chen", "2251 Pimmit Drive", "5715947580",
+                "sophia@example.com", "4111111111111111", new Date());
+        orderDetails = new OrderDetails(order, customer, lineItems, books);
+    }
+
+    @Benchmark
+    public byte[] serializeBooks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] serializeOrderDetails() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orderDetails);
+    }
+}
@@ -0,0 +1,24 @@
+package business;
+
+import javax.sql.DataSource;
+
+/**
+ * Installs the embedded H2 database (see EmbeddedDatabase) as the data source
+ * behind JdbcUtils, uninstrumented, for the benchmarks.
+ */
+public final class BenchmarkDatabase {
+
+    private BenchmarkDatabase() {
+    }
+
+    public static synchronized void start() {
+        JdbcUtils.setDataSource(EmbeddedDatabase.start());
+    }
+
+    /**
+     * The pool itself, for benchmarks that install a wrapper around it.
+     */
+    public static DataSource pool() {
+        return EmbeddedDatabase.start();
+    }
+}
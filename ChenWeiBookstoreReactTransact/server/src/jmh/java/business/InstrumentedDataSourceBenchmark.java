@@ -0,0 +1,64 @@
+package business;
+
+import business.book.Book;
+import business.book.BookDao;
+import business.book.BookDaoJdbc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What InstrumentedDataSource adds to DAO calls, against the bare pool: a
+ * single-row lookup and a category list, where every row read goes through
+ * the result set proxy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentedDataSourceBenchmark {
+
+    private static final long BOOK_ID = 1001;
+    private static final long CATEGORY_ID = 1002;
+
+    @Param({"false", "true"})
+    public boolean instrumented;
+
+    private final BookDao bookDao = new BookDaoJdbc();
+
+    @Setup
+    public void setUp() {
+        JdbcUtils.setDataSource(instrumented
+                ? new InstrumentedDataSource(BenchmarkDatabase.pool(), Long.MAX_VALUE)
+                : BenchmarkDatabase.pool());
+    }
+
+    @TearDown
+    public void tearDown() {
+        JdbcUtils.setDataSource(BenchmarkDatabase.pool());
+    }
+
+    @Benchmark
+    public Book findByBookId() {
+        return bookDao.findByBookId(BOOK_ID);
+    }
+
+    @Benchmark
+    public List<Book> findByCategoryId() {
+        return bookDao.findByCategoryId(CATEGORY_ID);
+    }
+}
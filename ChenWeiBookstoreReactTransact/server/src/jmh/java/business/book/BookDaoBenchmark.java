@@ -0,0 +1,80 @@
+package business.book;
+
+import business.BenchmarkDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookDaoBenchmark {
+
+    private static final long BOOK_ID = 1001;
+    private static final long CATEGORY_ID = 1002;
+    private static final List<Long> CART_BOOK_IDS = List.of(1001L, 1005L, 1009L, 1013L, 1016L);
+
+    private BookDao jdbcDao;
+    private BookDao cachingDao;
+
+    @Setup
+    public void setUp() {
+        BenchmarkDatabase.start();
+        jdbcDao = new BookDaoJdbc();
+        cachingDao = new CachingBookDao(jdbcDao, 0);
+    }
+
+    @Benchmark
+    public Book findByBookIdJdbc() {
+        return jdbcDao.findByBookId(BOOK_ID);
+    }
+
+    @Benchmark
+    public Book findByBookIdCached() {
+        return cachingDao.findByBookId(BOOK_ID);
+    }
+
+    @Benchmark
+    public List<Book> findByCategoryIdJdbc() {
+        return jdbcDao.findByCategoryId(CATEGORY_ID);
+    }
+
+    @Benchmark
+    public List<Book> findByCategoryIdCached() {
+        return cachingDao.findByCategoryId(CATEGORY_ID);
+    }
+
+    @Benchmark
+    public Map<Long, Book> findByBookIdsJdbc() {
+        return jdbcDao.findByBookIds(CART_BOOK_IDS);
+    }
+
+    @Benchmark
+    public Map<Long, Book> findByBookIdsCached() {
+        return cachingDao.findByBookIds(CART_BOOK_IDS);
+    }
+
+    @Benchmark
+    public List<Book> findRandomByCategoryIdJdbc() {
+        return jdbcDao.findRandomByCategoryId(CATEGORY_ID, 3);
+    }
+
+    @Benchmark
+    public List<Book> findRandomByCategoryIdCached() {
+        return cachingDao.findRandomByCategoryId(CATEGORY_ID, 3);
+    }
+}
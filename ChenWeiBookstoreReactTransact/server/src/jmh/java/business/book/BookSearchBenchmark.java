@@ -0,0 +1,70 @@
+package business.book;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency over a synthetic catalog whose words follow a skewed
+ * (roughly Zipfian) distribution, for a query of a rare and a common word,
+ * with and without a category filter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BookSearchBenchmark {
+
+    private static final int VOCABULARY_SIZE = 50_000;
+    private static final int DESCRIPTION_WORDS = 24;
+    private static final int CATEGORIES = 20;
+
+    @Param({"10000", "1000000"})
+    public int bookCount;
+
+    private BookSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        index = new BookSearchIndex();
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < bookCount; i++) {
+            description.setLength(0);
+            for (int w = 0; w < DESCRIPTION_WORDS; w++) {
+                description.append(word(random)).append(' ');
+            }
+            index.index(new Book(i + 1, word(random) + " " + word(random), "author" + random.nextInt(bookCount / 10 + 1),
+                    description.toString(), 799, 4.0, true, false, 1 + random.nextInt(CATEGORIES)));
+        }
+    }
+
+    // Word n is drawn with probability roughly proportional to 1/n
+    private static String word(SplittableRandom random) {
+        int n = (int) Math.pow(VOCABULARY_SIZE, random.nextDouble());
+        return "w" + n;
+    }
+
+    @Benchmark
+    public long[] searchRareAndCommonWord() {
+        return index.search("w4321 w12", 0, 20);
+    }
+
+    @Benchmark
+    public long[] searchInCategory() {
+        return index.search("w4321 w12", 7, 20);
+    }
+}
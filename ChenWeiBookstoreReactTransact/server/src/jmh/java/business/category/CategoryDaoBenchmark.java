@@ -0,0 +1,60 @@
+package business.category;
+
+import business.BenchmarkDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CategoryDaoBenchmark {
+
+    private CategoryDao jdbcDao;
+    private CategoryDao cachingDao;
+
+    @Setup
+    public void setUp() {
+        BenchmarkDatabase.start();
+        jdbcDao = new CategoryDaoJdbc();
+        cachingDao = new CachingCategoryDao(jdbcDao, 0);
+    }
+
+    @Benchmark
+    public List<Category> findAllJdbc() {
+        return jdbcDao.findAll();
+    }
+
+    @Benchmark
+    public List<Category> findAllCached() {
+        return cachingDao.findAll();
+    }
+
+    @Benchmark
+    public Category findByCategoryIdJdbc() {
+        return jdbcDao.findByCategoryId(1003);
+    }
+
+    @Benchmark
+    public Category findByNameJdbc() {
+        return jdbcDao.findByName("Mystery");
+    }
+
+    @Benchmark
+    public Category findByNameCached() {
+        return cachingDao.findByName("Mystery");
+    }
+}
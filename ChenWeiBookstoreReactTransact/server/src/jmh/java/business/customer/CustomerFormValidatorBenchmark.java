@@ -0,0 +1,68 @@
+package business.customer;
+
+import api.ApiException.FieldError;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomerFormValidator against the regular-expression checks it replaced in
+ * DefaultOrderService (kept here as the baseline). Run with -prof gc to compare
+ * allocation per operation as well as time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerFormValidatorBenchmark {
+
+    private final CustomerFormValidator validator = new CustomerFormValidator();
+    private final String expiryYear = String.valueOf(YearMonth.now().plusYears(2).getYear());
+    private final CustomerForm validForm = new CustomerForm("Sophia Chen", "2251 Pimmit Drive",
+            "(571) 594-7580", "sophia@example.com", "4111 1111 1111 1111", "3", expiryYear);
+    private final CustomerForm invalidForm = new CustomerForm("Al", "",
+            "571-594", "sophia.example.com", "4111", "13", expiryYear);
+
+    @Benchmark
+    public List<FieldError> validatorValidForm() {
+        return validator.validate(validForm);
+    }
+
+    @Benchmark
+    public List<FieldError> validatorInvalidForm() {
+        return validator.validate(invalidForm);
+    }
+
+    @Benchmark
+    public boolean regexBaselineValidForm() {
+        return regexValid(validForm);
+    }
+
+    private static boolean regexValid(CustomerForm form) {
+        String name = form.getName().trim();
+        String address = form.getAddress().trim();
+        String phone = form.getPhone().trim().replaceAll("[\\s\\-()]", "");
+        String email = form.getEmail().trim();
+        String ccNumber = form.getCcNumber().trim().replaceAll("[\\s\\-]", "");
+        return name.length() >= 4 && name.length() <= 45
+                && address.length() >= 4 && address.length() <= 45
+                && phone.matches("\\d{10}")
+                && !email.contains(" ") && email.contains("@") && !email.endsWith(".")
+                && ccNumber.matches("\\d{14,16}")
+                && form.getCcExpiryMonth().matches("\\d+") && form.getCcExpiryYear().matches("\\d+")
+                && !YearMonth.of(Integer.parseInt(form.getCcExpiryYear()), Integer.parseInt(form.getCcExpiryMonth()))
+                        .isBefore(YearMonth.now());
+    }
+}
@@ -0,0 +1,93 @@
+package business.order;
+
+import business.BenchmarkDatabase;
+import business.IdAllocator;
+import business.JdbcUtils;
+import business.cart.ShoppingCart;
+import business.cart.ShoppingCartItem;
+import business.customer.Customer;
+import business.customer.CustomerDao;
+import business.customer.CustomerDaoJdbc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-order write latency against cart size, inserting the line items
+ * one statement at a time versus in one JDBC batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineItemBatchBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int cartSize;
+
+    private ShoppingCart cart;
+    private final Date ccExpDate = Date.valueOf("2030-01-01");
+    private final CustomerDao customerDao = new CustomerDaoJdbc();
+    private final OrderDao orderDao = new OrderDaoJdbc();
+    private final LineItemDao lineItemDao = new LineItemDaoJdbc();
+    private IdAllocator customerIdAllocator;
+    private IdAllocator orderIdAllocator;
+
+    @Setup
+    public void setUp() {
+        BenchmarkDatabase.start();
+        cart = OrderFixtures.cart(cartSize);
+        customerIdAllocator = new IdAllocator("customer", "customer_id", 100);
+        orderIdAllocator = new IdAllocator("customer_order", "customer_order_id", 100);
+    }
+
+    @Benchmark
+    public long insertLineItemsOneByOne() throws SQLException {
+        long orderId = orderIdAllocator.nextId();
+        try (Connection connection = JdbcUtils.getConnection()) {
+            connection.setAutoCommit(false);
+            insertOrder(connection, orderId);
+            for (ShoppingCartItem item : cart.getItems()) {
+                lineItemDao.create(connection, item.getBookId(), orderId, item.getQuantity());
+            }
+            connection.commit();
+            return orderId;
+        }
+    }
+
+    @Benchmark
+    public long insertLineItemsBatched() throws SQLException {
+        long orderId = orderIdAllocator.nextId();
+        try (Connection connection = JdbcUtils.getConnection()) {
+            connection.setAutoCommit(false);
+            insertOrder(connection, orderId);
+            lineItemDao.createAll(connection, orderId, cart.getItems());
+            connection.commit();
+            return orderId;
+        }
+    }
+
+    private void insertOrder(Connection connection, long orderId) {
+        Customer customer = new Customer(customerIdAllocator.nextId(), "Sophia Chen", "2251 Pimmit Drive",
+                "5715947580", "sophia@example.com", "4111111111111111", ccExpDate);
+        customerDao.create(connection, customer.customerId(), null, customer.customerName(), customer.address(),
+                customer.phone(), customer.email(), customer.ccNumber(), customer.ccExpDate());
+        orderDao.create(connection, orderId, cart.getComputedSubtotal() + cart.getSurcharge(), new java.util.Date(),
+                DefaultOrderService.confirmationNumber(orderId), customer);
+    }
+}
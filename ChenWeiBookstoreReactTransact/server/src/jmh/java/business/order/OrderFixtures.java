@@ -0,0 +1,72 @@
+package business.order;
+
+import business.IdAllocator;
+import business.book.Book;
+import business.book.BookDaoJdbc;
+import business.book.BookForm;
+import business.cart.ShoppingCart;
+import business.cart.ShoppingCartItem;
+import business.customer.CustomerDaoJdbc;
+import business.customer.CustomerForm;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Valid order input for the benchmarks, built from the books in the benchmark database.
+ */
+final class OrderFixtures {
+
+    private OrderFixtures() {
+    }
+
+    static CustomerForm customerForm() {
+        YearMonth expiry = YearMonth.now().plusYears(2);
+        return new CustomerForm("Sophia Chen", "2251 Pimmit Drive", "(571) 594-7580",
+                "sophia@example.com", "4111 1111 1111 1111",
+                String.valueOf(expiry.getMonthValue()), String.valueOf(expiry.getYear()));
+    }
+
+    /**
+     * A cart with one copy each of the first {@code size} books in the catalog.
+     */
+    static ShoppingCart cart(int size) {
+        BookDaoJdbc bookDao = new BookDaoJdbc();
+        List<ShoppingCartItem> items = new ArrayList<>();
+        for (long categoryId = 1001; items.size() < size; categoryId++) {
+            List<Book> books = bookDao.findByCategoryId(categoryId);
+            if (books.isEmpty()) {
+                throw new IllegalArgumentException("The catalog has fewer than " + size + " books");
+            }
+            for (Book book : books) {
+                if (items.size() == size) {
+                    break;
+                }
+                BookForm bookForm = new BookForm();
+                bookForm.setBookId(book.bookId());
+                bookForm.setPrice(book.price());
+                bookForm.setCategoryId(book.categoryId());
+                ShoppingCartItem item = new ShoppingCartItem();
+                item.setBookForm(bookForm);
+                item.setQuantity(1);
+                items.add(item);
+            }
+        }
+        ShoppingCart cart = new ShoppingCart();
+        cart.setItems(items);
+        return cart;
+    }
+
+    static DefaultOrderService orderService() {
+        DefaultOrderService orderService = new DefaultOrderService();
+        orderService.setBookDao(new BookDaoJdbc());
+        orderService.setCustomerDao(new CustomerDaoJdbc());
+        orderService.setOrderDao(new OrderDaoJdbc());
+        orderService.setLineItemDao(new LineItemDaoJdbc());
+        orderService.setOrderDetailsDao(new OrderDetailsDaoJdbc());
+        orderService.setCustomerIdAllocator(new IdAllocator("customer", "customer_id", 100));
+        orderService.setOrderIdAllocator(new IdAllocator("customer_order", "customer_order_id", 100));
+        return orderService;
+    }
+}
@@ -0,0 +1,78 @@
+package business.order;
+
+import business.BenchmarkDatabase;
+import business.book.Book;
+import business.book.BookDao;
+import business.book.BookDaoJdbc;
+import business.cart.ShoppingCart;
+import business.customer.Customer;
+import business.customer.CustomerDao;
+import business.customer.CustomerDaoJdbc;
+import business.customer.CustomerForm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order placement, and reading an order back both with the single joined
+ * query and with the one-query-per-table path it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    private DefaultOrderService orderService;
+    private CustomerForm customerForm;
+    private ShoppingCart cart;
+    private long orderId;
+
+    private final OrderDao orderDao = new OrderDaoJdbc();
+    private final CustomerDao customerDao = new CustomerDaoJdbc();
+    private final LineItemDao lineItemDao = new LineItemDaoJdbc();
+    private final BookDao bookDao = new BookDaoJdbc();
+
+    @Setup
+    public void setUp() {
+        BenchmarkDatabase.start();
+        orderService = OrderFixtures.orderService();
+        customerForm = OrderFixtures.customerForm();
+        cart = OrderFixtures.cart(3);
+        orderId = orderService.placeOrder(customerForm, cart);
+    }
+
+    @Benchmark
+    public long placeOrder() {
+        return orderService.placeOrder(customerForm, cart);
+    }
+
+    @Benchmark
+    public OrderDetails getOrderDetailsJoined() {
+        return orderService.getOrderDetails(orderId);
+    }
+
+    @Benchmark
+    public OrderDetails getOrderDetailsMultiQuery() {
+        Order order = orderDao.findByOrderId(orderId);
+        Customer customer = customerDao.findByCustomerId(order.customerId());
+        List<LineItem> lineItems = lineItemDao.findByOrderId(orderId);
+        List<Book> books = lineItems
+                .stream()
+                .map(lineItem -> bookDao.findByBookId(lineItem.bookId()))
+                .toList();
+        return new OrderDetails(order, customer, lineItems, books);
+    }
+}
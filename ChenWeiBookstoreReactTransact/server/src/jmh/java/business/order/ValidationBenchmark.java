@@ -0,0 +1,56 @@
+package business.order;
+
+import api.ApiException;
+import business.customer.CustomerForm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout validation of the customer form, for a valid form and for one
+ * that fails on its last field.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private final DefaultOrderService orderService = new DefaultOrderService();
+    private CustomerForm validForm;
+    private CustomerForm invalidForm;
+
+    @Setup
+    public void setUp() {
+        validForm = OrderFixtures.customerForm();
+        invalidForm = OrderFixtures.customerForm();
+        invalidForm.setCcExpiryMonth("13");
+    }
+
+    @Benchmark
+    public CustomerForm validateValidCustomer() {
+        orderService.validateCustomer(validForm);
+        return validForm;
+    }
+
+    @Benchmark
+    public Object validateInvalidCustomer() {
+        try {
+            orderService.validateCustomer(invalidForm);
+            return invalidForm;
+        } catch (ApiException.ValidationFailure e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package api;
+
+import business.ApplicationContext;
+import business.customer.Customer;
+import business.customer.CustomerDao;
+import business.order.Order;
+import business.order.OrderDao;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.List;
+
+/**
+ * Exports of every order and customer, for back-office use. Without a limit the
+ * bodies are streamed from the database row by row; with one they are read a
+ * page at a time (see KeysetPages).
+ *
+ * These expose customer details, so they answer 404 unless the server runs
+ * with -Dbookstore.admin.enabled=true, which should only be set where /api
+ * is not reachable from the public internet. They are under /api/admin, apart
+ * from the public resources.
+ */
+@Path("admin")
+public class AdminResource {
+
+    private static final boolean ENABLED = Boolean.getBoolean("bookstore.admin.enabled");
+
+    private final OrderDao orderDao = ApplicationContext.getOrderDao();
+    private final CustomerDao customerDao = ApplicationContext.getCustomerDao();
+
+    @GET
+    @Path("orders")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response orders(@QueryParam("limit") Integer limit,
+                           @QueryParam("after") String after) {
+        requireEnabled();
+        if (limit == null) {
+            return Response.ok(JsonStreams.<Order>jsonArray(orderDao::forEach)).build();
+        }
+        KeysetPages.checkLimit(limit);
+        List<Order> orders = orderDao.findAfter(KeysetPages.decodeCursor("order", after), limit + 1);
+        return KeysetPages.page("order", orders, limit, Order::orderId);
+    }
+
+    @GET
+    @Path("customers")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response customers(@QueryParam("limit") Integer limit,
+                              @QueryParam("after") String after) {
+        requireEnabled();
+        if (limit == null) {
+            return Response.ok(JsonStreams.<Customer>jsonArray(customerDao::forEach)).build();
+        }
+        KeysetPages.checkLimit(limit);
+        List<Customer> customers = customerDao.findAfter(KeysetPages.decodeCursor("customer", after), limit + 1);
+        return KeysetPages.page("customer", customers, limit, Customer::customerId);
+    }
+
+    private static void requireEnabled() {
+        if (!ENABLED) {
+            throw new NotFoundException();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package api;
 
+import java.util.List;
+
 public class ApiException extends RuntimeException {
 
     public ApiException(String message) {
@@ -10,12 +12,46 @@ public class ApiException extends RuntimeException {
         super(message, cause);
     }
 
+    // For expected failures, where filling in a stack trace is wasted work
+    protected ApiException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
+    /**
+     * A request turned away because the server is too busy, or shutting down,
+     * to take it. Nothing was done; the client may retry later.
+     */
+    public static class ServiceUnavailable extends ApiException {
+
+        public ServiceUnavailable(String message) {
+            super(message, false);
+        }
+    }
+
+    /**
+     * An Idempotency-Key sent again with a different order than the one it
+     * was first used for. Nothing was placed.
+     */
+    public static class IdempotencyKeyReused extends ApiException {
+
+        public IdempotencyKeyReused(String message) {
+            super(message, false);
+        }
+    }
+
+    public record FieldError(String fieldName, String message) {}
+
+    /**
+     * A request that failed validation. Failures without a cause are expected
+     * outcomes reported back to the client, so they carry no stack trace.
+     */
     public static class ValidationFailure extends ApiException {
 
         private String fieldName = null;
+        private List<FieldError> fieldErrors = List.of();
 
         public ValidationFailure(String message) {
-            super(message);
+            super(message, false);
         }
 
         public ValidationFailure(String message, Throwable t) {
@@ -23,7 +59,7 @@ public class ApiException extends RuntimeException {
         }
 
         public ValidationFailure(String fieldName, String message) {
-            super(message);
+            super(message, false);
             this.fieldName = fieldName;
         }
 
@@ -32,6 +68,15 @@ public class ApiException extends RuntimeException {
             this.fieldName = fieldName;
         }
 
+        /**
+         * A failure reporting several field errors at once. Its field name and
+         * message are those of the first error.
+         */
+        public ValidationFailure(List<FieldError> fieldErrors) {
+            this(fieldErrors.get(0).fieldName(), fieldErrors.get(0).message());
+            this.fieldErrors = List.copyOf(fieldErrors);
+        }
+
         public String getFieldName() {
             return fieldName;
         }
@@ -39,5 +84,9 @@ public class ApiException extends RuntimeException {
         public boolean isFieldError() {
             return fieldName != null && fieldName.length()>0;
         }
+
+        public List<FieldError> getFieldErrors() {
+            return fieldErrors;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,13 @@
 package api;
 
+import api.ApiException.FieldError;
+import api.ApiException.IdempotencyKeyReused;
+import api.ApiException.ServiceUnavailable;
 import api.ApiException.ValidationFailure;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.annotation.Priority;
 import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.ExceptionMapper;
@@ -26,16 +31,42 @@ public class ApiExceptionHandler implements
 
 	private Logger logger = Logger.getLogger(ApiExceptionHandler.class.getName());
 
+	// Response.Status has no constant for 422
+	private static final Response.StatusType UNPROCESSABLE_ENTITY = new Response.StatusType() {
+		@Override
+		public int getStatusCode() {
+			return 422;
+		}
+
+		@Override
+		public Response.Status.Family getFamily() {
+			return Response.Status.Family.CLIENT_ERROR;
+		}
+
+		@Override
+		public String getReasonPhrase() {
+			return "Unprocessable Entity";
+		}
+	};
+
 	@Override
 	public Response toResponse(ApiException exception) {
-		Response.Status status = Response.Status.INTERNAL_SERVER_ERROR;
+		Response.StatusType status = Response.Status.INTERNAL_SERVER_ERROR;
 		if (exception instanceof ValidationFailure) {
 			status = Response.Status.BAD_REQUEST;
 		}
+		if (exception instanceof IdempotencyKeyReused) {
+			status = UNPROCESSABLE_ENTITY;
+		}
+		if (exception instanceof ServiceUnavailable) {
+			return Response.fromResponse(makeResponse(exception, Response.Status.SERVICE_UNAVAILABLE))
+					.header(HttpHeaders.RETRY_AFTER, OrderExecutor.RETRY_AFTER_SECONDS)
+					.build();
+		}
 		return makeResponse(exception, status);
 	}
 
-	private Response makeResponse(Exception exception, Response.Status status) {
+	private Response makeResponse(Exception exception, Response.StatusType status) {
 		try {
 			String fieldName = Optional.of(exception)
 					.filter(ValidationFailure.class::isInstance)
@@ -43,10 +74,15 @@ public class ApiExceptionHandler implements
 					.filter(ValidationFailure::isFieldError)
 					.map(ValidationFailure::getFieldName)
 					.orElse(null);
+			List<FieldError> fieldErrors = Optional.of(exception)
+					.filter(ValidationFailure.class::isInstance)
+					.map(ValidationFailure.class::cast)
+					.map(ValidationFailure::getFieldErrors)
+					.orElse(List.of());
 
 			ServerErrorResponse serverErrorResponse =
 					new ServerErrorResponse(status.getReasonPhrase(),
-							exception.getMessage(), fieldName);
+							exception.getMessage(), fieldName, fieldErrors);
 			return Response.status(status).entity(serverErrorResponse).type(MediaType.APPLICATION_JSON_TYPE).build();
 		} catch (Exception e) {
 			logger.log(Level.INFO, e, () -> "Problem attempting to map an Exception to a json response");
@@ -57,9 +93,10 @@ public class ApiExceptionHandler implements
 			return Response.serverError().entity(internalErrorResponse).build();
 		}
 	}
-	public record ServerErrorResponse(String reason, String message, String fieldName) {
+	public record ServerErrorResponse(String reason, String message, String fieldName,
+									  @JsonInclude(JsonInclude.Include.NON_EMPTY) List<FieldError> fieldErrors) {
 		public ServerErrorResponse(String reason, String message) {
-			this(reason, message, null);
+			this(reason, message, null, List.of());
 		}
 
 		public boolean getError() {
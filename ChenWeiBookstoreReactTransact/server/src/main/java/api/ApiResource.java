@@ -8,21 +8,48 @@ import business.book.BookDao;
 import business.order.OrderService;
 import business.order.OrderForm;
 import business.order.OrderDetails;
+import business.order.OrderRequests;
 
+import business.UnitOfWork;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Path("/")
 public class ApiResource {
 
+    private static final int MAX_SEARCH_RESULTS = 100;
+
     private final BookDao bookDao = ApplicationContext.INSTANCE.getBookDao();
     private final CategoryDao categoryDao = ApplicationContext.INSTANCE.getCategoryDao();
     private final OrderService orderService = ApplicationContext.INSTANCE.getOrderService();
 
+    // For load balancers: 200 once ApplicationContext's warm-up is done, 503 before
     @GET
+    @Path("ready")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response ready() {
+        return ApplicationContext.isReady()
+                ? Response.ok("ready").build()
+                : Response.status(Response.Status.SERVICE_UNAVAILABLE).entity("warming up").build();
+    }
+
+    @GET
+    @CatalogResource
     @Path("categories")
     @Produces(MediaType.APPLICATION_JSON)
     public List<Category> categories(@Context HttpServletRequest httpRequest) {
@@ -34,6 +61,7 @@ public class ApiResource {
     }
 
     @GET
+    @CatalogResource
     @Path("categories/{category-id}")
     @Produces(MediaType.APPLICATION_JSON)
     public Category categoryById(@PathParam("category-id") long categoryId,
@@ -50,6 +78,7 @@ public class ApiResource {
     }
 
     @GET
+    @CatalogResource
     @Path("books/{book-id}")
     @Produces(MediaType.APPLICATION_JSON)
     public Book bookById(@PathParam("book-id") long bookId,
@@ -66,16 +95,63 @@ public class ApiResource {
     }
 
     @GET
+    @CatalogResource(bodyCached = false)
+    @Path("books/search")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<Book> searchBooks(@QueryParam("q") String query,
+                                  @QueryParam("categoryId") @DefaultValue("0") long categoryId,
+                                  @QueryParam("limit") @DefaultValue("20") int limit,
+                                  @Context HttpServletRequest httpRequest) {
+        if (query == null || query.isBlank()) {
+            throw new ApiException.ValidationFailure("q", "Search query is missing.");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new ApiException.ValidationFailure("limit", "Limit must be between 1 and " + MAX_SEARCH_RESULTS + ".");
+        }
+        try {
+            long[] bookIds = ApplicationContext.getBookSearchIndex().search(query, categoryId, limit);
+            Map<Long, Book> books = bookDao.findByBookIds(Arrays.stream(bookIds).boxed().toList());
+            List<Book> result = new ArrayList<>(bookIds.length);
+            for (long bookId : bookIds) {
+                Book book = books.get(bookId);
+                if (book != null) {
+                    result.add(book);
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            throw new ApiException("Book search failed", e);
+        }
+    }
+
+    @GET
+    @CatalogResource
     @Path("categories/{category-id}/books")
     @Produces(MediaType.APPLICATION_JSON)
-    public List<Book> booksByCategoryId(@PathParam("category-id") long categoryId,
-                                        @Context HttpServletRequest httpRequest) {
+    public Response booksByCategoryId(@PathParam("category-id") long categoryId,
+                                      @QueryParam("stream") @DefaultValue("false") boolean stream,
+                                      @QueryParam("limit") Integer limit,
+                                      @QueryParam("after") String after,
+                                      @Context HttpServletRequest httpRequest) {
         try {
             Category category = categoryDao.findByCategoryId(categoryId);
             if (category == null) {
                 throw new ApiException(String.format("No such category id: %d", categoryId));
             }
-            return bookDao.findByCategoryId(category.categoryId());
+            if (limit != null) {
+                KeysetPages.checkLimit(limit);
+                long afterBookId = KeysetPages.decodeCursor("book", after);
+                List<Book> books = bookDao.findByCategoryIdAfter(category.categoryId(), afterBookId, limit + 1);
+                return KeysetPages.page("book", books, limit, Book::bookId);
+            }
+            if (stream) {
+                StreamingOutput books = JsonStreams.<Book>jsonArray(
+                        action -> bookDao.forEachByCategoryId(category.categoryId(), action));
+                return Response.ok(books).build();
+            }
+            return Response.ok(bookDao.findByCategoryId(category.categoryId())).build();
+        } catch (ApiException.ValidationFailure e) {
+            throw e;
         } catch (Exception e) {
             throw new ApiException(String.format("Books lookup by category-id %d failed", categoryId), e);
         }
@@ -97,6 +173,7 @@ public class ApiResource {
     // TODO Implement the following APIs
     // categories/name/{category-name}
     @GET
+    @CatalogResource
     @Path("categories/name/{category-name}")
     @Produces(MediaType.APPLICATION_JSON)
     public Category categoryByName(
@@ -106,6 +183,7 @@ public class ApiResource {
     }
     // categories/name/{category-name}/books
     @GET
+    @CatalogResource
     @Path("categories/name/{category-name}/books")
     @Produces(MediaType.APPLICATION_JSON)
     public List<Book> booksByCategoryName(
@@ -142,10 +220,103 @@ public class ApiResource {
     @Path("orders")
     @Consumes(jakarta.ws.rs.core.MediaType.APPLICATION_JSON)
     @Produces(jakarta.ws.rs.core.MediaType.APPLICATION_JSON)
-    public OrderDetails placeOrder(OrderForm orderForm) {
+    public void placeOrder(OrderForm orderForm, @HeaderParam(IdempotentOrders.HEADER) String idempotencyKey,
+                           @Suspended AsyncResponse asyncResponse) {
+        if (orderForm == null) {
+            asyncResponse.resume(new ApiException.ValidationFailure("Order form is required."));
+            return;
+        }
+        if (idempotencyKey != null
+                && (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotentOrders.MAX_KEY_LENGTH)) {
+            asyncResponse.resume(new ApiException.ValidationFailure(IdempotentOrders.HEADER,
+                    "Idempotency-Key must be 1 to " + IdempotentOrders.MAX_KEY_LENGTH + " characters."));
+            return;
+        }
+        // Hashed once, here, and validated once, when the order is placed
+        String requestHash = idempotencyKey == null ? null
+                : OrderRequests.requestHash(orderForm.getCustomerForm(), orderForm.getCart());
+        // Completed with the outcome, for any duplicate requests attached to this one
+        CompletableFuture<OrderDetails> placement = new CompletableFuture<>();
+        if (idempotencyKey != null) {
+            CompletableFuture<OrderDetails> started = IdempotentOrders.attach(idempotencyKey, requestHash, placement);
+            if (started != null) {
+                started.whenComplete((details, failure) -> {
+                    // resume(Throwable) maps the failure; resume(Object) would send it as the body
+                    if (failure == null) {
+                        asyncResponse.resume(details);
+                    } else {
+                        asyncResponse.resume(failure);
+                    }
+                });
+                return;
+            }
+        }
+
+        // Whoever claims the order first, the worker or the timeout, decides the response;
+        // an order that has started is never answered with a timeout.
+        AtomicBoolean claimed = new AtomicBoolean();
+        asyncResponse.setTimeout(OrderExecutor.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        asyncResponse.setTimeoutHandler(response -> {
+            if (claimed.compareAndSet(false, true)) {
+                placement.completeExceptionally(notStarted());
+                response.resume(serviceUnavailable());
+            } else {
+                response.setTimeout(OrderExecutor.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        });
+        try {
+            OrderExecutor.INSTANCE.execute(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return;
+                }
+                OrderDetails details;
+                try {
+                    details = placeOrderInUnitOfWork(orderForm, idempotencyKey, requestHash);
+                } catch (Throwable t) {
+                    placement.completeExceptionally(t);
+                    asyncResponse.resume(t);
+                    return;
+                }
+                placement.complete(details);
+                asyncResponse.resume(details);
+            });
+        } catch (RejectedExecutionException e) {
+            placement.completeExceptionally(notStarted());
+            asyncResponse.resume(serviceUnavailable());
+        }
+    }
+
+    // What duplicates attached to an order that never started are answered with
+    private static ServiceUnavailableException notStarted() {
+        return new ServiceUnavailableException((long) OrderExecutor.RETRY_AFTER_SECONDS);
+    }
+
+    private Response serviceUnavailable() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, OrderExecutor.RETRY_AFTER_SECONDS)
+                .build();
+    }
+
+    /*
+     * Places the order holding one of OrderExecutor.CONNECTIONS, in a unit of
+     * work that is closed, and its connection back in the pool, before the
+     * response is serialized.
+     */
+    @SuppressWarnings("try")
+    private OrderDetails placeOrderInUnitOfWork(OrderForm orderForm, String idempotencyKey, String requestHash) {
+        OrderExecutor.CONNECTIONS.acquireUninterruptibly();
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            return placeOrder(orderForm, idempotencyKey, requestHash);
+        } finally {
+            OrderExecutor.CONNECTIONS.release();
+        }
+    }
+
+    private OrderDetails placeOrder(OrderForm orderForm, String idempotencyKey, String requestHash) {
         try {
             System.out.println("Received order form: " + orderForm);
-            long orderId = orderService.placeOrder(orderForm.getCustomerForm(), orderForm.getCart());
+            long orderId = orderService.placeOrder(orderForm.getCustomerForm(), orderForm.getCart(),
+                    idempotencyKey, requestHash);
             System.out.println("Order placed with ID: " + orderId);
 
             if (orderId > 0) {
@@ -1,21 +1,46 @@
 package api;
 
 import jakarta.annotation.Priority;
+import jakarta.ws.rs.HttpMethod;
 import jakarta.ws.rs.Priorities;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerResponseContext;
 import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.ext.Provider;
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 
 /**
  * A filter injecting standard response headers.
+ *
+ * Successful GET responses from {@link CatalogResource} methods also get a strong
+ * ETag: the SHA-256 of the serialized body. The body is serialized here, once,
+ * and handed on as bytes, so a matching If-None-Match is answered with 304
+ * without writing anything and a different body can't get the same tag.
+ * Streamed bodies can't be hashed before they are sent and are left uncached.
  */
 @Provider
 @Priority(Priorities.AUTHENTICATION)
 public class ApiResponseFilter implements ContainerResponseFilter {
 
+	private static final String PRIVATE_CACHE_CONTROL =
+			"must-revalidate, no-cache, no-store, no-transform, private, proxy-revalidate, max-age=5";
+
+	private static final String CATALOG_CACHE_CONTROL =
+			"public, no-transform, max-age=" + Integer.getInteger("bookstore.catalog.maxAgeSeconds", 60);
+
+	@Context
+	private ResourceInfo resourceInfo;
+
 	public ApiResponseFilter() {
 	}
 
@@ -23,9 +48,62 @@ public class ApiResponseFilter implements ContainerResponseFilter {
 	public void filter(ContainerRequestContext requestContext,
 					   ContainerResponseContext responseContext) throws IOException {
 		MultivaluedMap<String, Object> headers = responseContext.getHeaders();
-		headers.putSingle("Cache-Control", "must-revalidate, no-cache, no-store, no-transform, private, proxy-revalidate, max-age=5");
+		if (isCatalogResponse(requestContext, responseContext)) {
+			byte[] body = ObjectMapperResolver.objectMapper().writeValueAsBytes(responseContext.getEntity());
+			String etag = catalogETag(body);
+			headers.putSingle(HttpHeaders.ETAG, etag);
+			headers.putSingle("Cache-Control", CATALOG_CACHE_CONTROL);
+			if (matches(requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH), etag)) {
+				responseContext.setStatusInfo(Response.Status.NOT_MODIFIED);
+				responseContext.setEntity(null);
+				headers.remove(HttpHeaders.CONTENT_TYPE);
+				// CompressionInterceptor adds this to bodies; a 304 has none but varies the same way
+				headers.putSingle(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			} else {
+				responseContext.setEntity(body, responseContext.getEntityAnnotations(), responseContext.getMediaType());
+			}
+		} else {
+			headers.putSingle("Cache-Control", PRIVATE_CACHE_CONTROL);
+		}
 		headers.putSingle("X-Frame-Options", "DENY");
 		headers.putSingle("X-XSS-Protection", "1; mode=block");
 		headers.putSingle("X-Content-Type", "nosniff");
 	}
+
+	private boolean isCatalogResponse(ContainerRequestContext requestContext,
+									  ContainerResponseContext responseContext) {
+		if (!HttpMethod.GET.equals(requestContext.getMethod())
+				|| responseContext.getStatus() != Response.Status.OK.getStatusCode()
+				|| !responseContext.hasEntity()
+				|| responseContext.getEntity() instanceof StreamingOutput) {
+			return false;
+		}
+		Method method = resourceInfo == null ? null : resourceInfo.getResourceMethod();
+		return method != null && method.isAnnotationPresent(CatalogResource.class);
+	}
+
+	static String catalogETag(byte[] body) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+			return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	private static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			String tag = candidate.trim();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if (tag.equals("*") || tag.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
 }
@@ -0,0 +1,23 @@
+package api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET resource method whose response depends only on the book catalog.
+ * ApiResponseFilter gives these responses an ETag and a shared Cache-Control
+ * header; every other response stays private and uncached.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CatalogResource {
+
+    /**
+     * Whether CompressionInterceptor keeps the serialized body in memory. Turn
+     * it off for methods taking free-form parameters, whose bodies would
+     * mostly be cached once and never asked for again.
+     */
+    boolean bodyCached() default true;
+}
@@ -0,0 +1,152 @@
+package api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses what is written to it as gzip or deflate (zlib) with a Deflater
+ * borrowed from a pool, so responses don't each allocate a Deflater and its
+ * native buffers. The Deflater, with its output buffer, goes back to the pool
+ * when the stream is closed, which also closes the underlying stream.
+ *
+ * GZIPOutputStream can't be given a Deflater, so the gzip header and trailer
+ * are written here.
+ */
+final class CompressingOutputStream extends OutputStream {
+
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private static final int POOL_SIZE = Integer.getInteger("bookstore.compression.pooledDeflaters", 32);
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    // gzip needs raw deflate data (nowrap), deflate the zlib wrapping
+    private static final BlockingQueue<PooledDeflater> GZIP_DEFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final BlockingQueue<PooledDeflater> DEFLATE_DEFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private record PooledDeflater(Deflater deflater, byte[] buffer) {}
+
+    private final OutputStream out;
+    private final boolean gzip;
+    private final PooledDeflater pooled;
+    private final Deflater deflater;
+    private final byte[] buffer;
+    private final CRC32 crc = new CRC32();
+    private final byte[] single = new byte[1];
+    private boolean closed;
+
+    CompressingOutputStream(OutputStream out, String encoding, int level) throws IOException {
+        this.out = out;
+        this.gzip = GZIP.equals(encoding);
+        this.pooled = borrow(gzip, level);
+        this.deflater = pooled.deflater();
+        this.buffer = pooled.buffer();
+        if (gzip) {
+            out.write(GZIP_HEADER);
+        }
+    }
+
+    /**
+     * Compresses a whole body at once.
+     */
+    static byte[] compress(byte[] body, String encoding, int level) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (CompressingOutputStream stream = new CompressingOutputStream(compressed, encoding, level)) {
+            stream.write(body);
+        } catch (IOException e) {
+            throw new IllegalStateException("Compressing into memory failed", e);
+        }
+        return compressed.toByteArray();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        if (gzip) {
+            crc.update(b, off, len);
+        }
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            drain(Deflater.NO_FLUSH);
+        }
+    }
+
+    /**
+     * Pushes out everything written so far, at some cost in compression, for
+     * streamed bodies the client should see as they are produced.
+     */
+    @Override
+    public void flush() throws IOException {
+        drain(Deflater.SYNC_FLUSH);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain(Deflater.NO_FLUSH);
+            }
+            if (gzip) {
+                writeIntLittleEndian((int) crc.getValue());
+                writeIntLittleEndian((int) deflater.getBytesRead());
+            }
+        } finally {
+            release(gzip, pooled);
+            out.close();
+        }
+    }
+
+    private void drain(int flush) throws IOException {
+        int length;
+        do {
+            length = deflater.deflate(buffer, 0, buffer.length, flush);
+            if (length > 0) {
+                out.write(buffer, 0, length);
+            }
+        } while (length == buffer.length);
+    }
+
+    private void writeIntLittleEndian(int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >>> 8) & 0xff);
+        out.write((value >>> 16) & 0xff);
+        out.write((value >>> 24) & 0xff);
+    }
+
+    private static PooledDeflater borrow(boolean gzip, int level) {
+        PooledDeflater pooled = (gzip ? GZIP_DEFLATERS : DEFLATE_DEFLATERS).poll();
+        if (pooled == null) {
+            return new PooledDeflater(new Deflater(level, gzip), new byte[8192]);
+        }
+        pooled.deflater().setLevel(level);
+        return pooled;
+    }
+
+    // Deflaters the pool has no room for are ended, freeing their native memory now
+    private static void release(boolean gzip, PooledDeflater pooled) {
+        pooled.deflater().reset();
+        if (!(gzip ? GZIP_DEFLATERS : DEFLATE_DEFLATERS).offer(pooled)) {
+            pooled.deflater().end();
+        }
+    }
+}
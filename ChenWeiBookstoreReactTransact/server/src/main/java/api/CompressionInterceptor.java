@@ -0,0 +1,290 @@
+package api;
+
+import business.ApplicationContext;
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses API responses with gzip, or deflate, when the client accepts it
+ * and the body is at least bookstore.compression.minBytes long (1024 by
+ * default). Smaller bodies are sent as they are, since compressing them saves
+ * less than it costs.
+ *
+ * Catalog responses, the ones ApiResponseFilter gives an ETag, are kept in
+ * memory already serialized and compressed, by request URI and encoding, so a
+ * repeat is written straight from the cache once its ETag is checked against
+ * the cached one. The cache holds the bookstore.compression.cachedBodies most
+ * recently used bodies, is emptied when the catalog version changes, and
+ * skips methods marked CatalogResource(bodyCached = false). Compressed
+ * responses get a weak ETag, as a strong one would have to differ from the
+ * uncompressed one's.
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor {
+
+    private static final int MIN_BYTES = Integer.getInteger("bookstore.compression.minBytes", 1024);
+
+    private static final int LEVEL = Integer.getInteger("bookstore.compression.level", Deflater.DEFAULT_COMPRESSION);
+
+    private static final int MAX_CACHED_BODIES = Integer.getInteger("bookstore.compression.cachedBodies", 1000);
+
+    // A cached body is compressed once, so it is worth compressing as well as possible
+    private static final int CACHED_LEVEL = Deflater.BEST_COMPRESSION;
+
+    // The body as sent for an ETag, and its Content-Encoding, or null when it is sent uncompressed
+    private record EncodedBody(String etag, byte[] bytes, String encoding) {}
+
+    private static final Map<String, EncodedBody> CATALOG_BODIES =
+            Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, EncodedBody> eldest) {
+                    return size() > MAX_CACHED_BODIES;
+                }
+            });
+    private static final AtomicLong cachedCatalogVersion = new AtomicLong();
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    @Context
+    private UriInfo uriInfo;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        if (headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            context.proceed();
+            return;
+        }
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String encoding = negotiate(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null) {
+            context.proceed();
+            return;
+        }
+
+        Object etag = headers.getFirst(HttpHeaders.ETAG);
+        if (etag != null && isBodyCached()) {
+            writeCatalogBody(context, encoding + " " + uriInfo.getRequestUri(), encoding, etag.toString());
+            return;
+        }
+
+        // A Deflater left borrowed by a failed write is freed when it is collected
+        OutputStream out = context.getOutputStream();
+        ThresholdOutputStream threshold = new ThresholdOutputStream(out, headers, encoding);
+        context.setOutputStream(threshold);
+        try {
+            context.proceed();
+        } finally {
+            context.setOutputStream(out);
+        }
+        threshold.close();
+    }
+
+    private boolean isBodyCached() {
+        Method method = resourceInfo == null ? null : resourceInfo.getResourceMethod();
+        CatalogResource catalogResource = method == null ? null : method.getAnnotation(CatalogResource.class);
+        return catalogResource != null && catalogResource.bodyCached();
+    }
+
+    private static void writeCatalogBody(WriterInterceptorContext context, String key, String encoding, String etag)
+            throws IOException {
+        long catalogVersion = ApplicationContext.getCatalogVersion();
+        if (cachedCatalogVersion.getAndSet(catalogVersion) != catalogVersion) {
+            CATALOG_BODIES.clear();
+        }
+        EncodedBody body = CATALOG_BODIES.get(key);
+        if (body == null || !body.etag().equals(etag)) {
+            OutputStream out = context.getOutputStream();
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            context.setOutputStream(serialized);
+            try {
+                context.proceed();
+            } finally {
+                context.setOutputStream(out);
+            }
+            byte[] bytes = serialized.toByteArray();
+            body = bytes.length < MIN_BYTES
+                    ? new EncodedBody(etag, bytes, null)
+                    : new EncodedBody(etag, CompressingOutputStream.compress(bytes, encoding, CACHED_LEVEL), encoding);
+            CATALOG_BODIES.put(key, body);
+        }
+        if (body.encoding() != null) {
+            markEncoded(context.getHeaders(), body.encoding());
+        }
+        context.getOutputStream().write(body.bytes());
+    }
+
+    private static void markEncoded(MultivaluedMap<String, Object> headers, String encoding) {
+        headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+        Object etag = headers.getFirst(HttpHeaders.ETAG);
+        if (etag != null && !etag.toString().startsWith("W/")) {
+            headers.putSingle(HttpHeaders.ETAG, "W/" + etag);
+        }
+    }
+
+    /*
+     * Picks gzip over deflate when both are acceptable. A q of 0 rules an
+     * encoding out, and * stands for any encoding not named.
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        Boolean gzip = null;
+        Boolean deflate = null;
+        Boolean any = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] parameters = part.split(";");
+            String coding = parameters[0].trim().toLowerCase(Locale.ROOT);
+            boolean acceptable = true;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.startsWith("q=")) {
+                    acceptable = isPositive(parameter.substring(2).trim());
+                }
+            }
+            switch (coding) {
+                case "gzip", "x-gzip" -> gzip = acceptable;
+                case "deflate" -> deflate = acceptable;
+                case "*" -> any = acceptable;
+                default -> { }
+            }
+        }
+        if (gzip != null ? gzip : Boolean.TRUE.equals(any)) {
+            return CompressingOutputStream.GZIP;
+        }
+        if (deflate != null ? deflate : Boolean.TRUE.equals(any)) {
+            return CompressingOutputStream.DEFLATE;
+        }
+        return null;
+    }
+
+    private static boolean isPositive(String quality) {
+        try {
+            return Double.parseDouble(quality) > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /*
+     * Holds back the first MIN_BYTES of the body. If it grows past them, the
+     * headers are marked compressed before anything reaches the response, and
+     * everything from then on is compressed; if not, the body is written as is.
+     */
+    private static final class ThresholdOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final MultivaluedMap<String, Object> headers;
+        private final String encoding;
+        private byte[] held = new byte[Math.min(MIN_BYTES, 8192)];
+        private int heldLength;
+        private final byte[] single = new byte[1];
+        private OutputStream compressing;
+        private boolean closed;
+
+        ThresholdOutputStream(OutputStream out, MultivaluedMap<String, Object> headers, String encoding) {
+            this.out = out;
+            this.headers = headers;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte) b;
+            write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (compressing != null) {
+                compressing.write(b, off, len);
+                return;
+            }
+            if (heldLength + len < MIN_BYTES) {
+                if (heldLength + len > held.length) {
+                    held = Arrays.copyOf(held, Math.min(MIN_BYTES, Math.max(held.length * 2, heldLength + len)));
+                }
+                System.arraycopy(b, off, held, heldLength, len);
+                heldLength += len;
+                return;
+            }
+            markEncoded(headers, encoding);
+            compressing = new CompressingOutputStream(new UnclosableOutputStream(out), encoding, LEVEL);
+            compressing.write(held, 0, heldLength);
+            compressing.write(b, off, len);
+            held = null;
+        }
+
+        // Until the body is known to be compressed, flushing would commit the uncompressed headers
+        @Override
+        public void flush() throws IOException {
+            if (compressing != null) {
+                compressing.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (compressing != null) {
+                compressing.close();
+            } else if (heldLength > 0) {
+                out.write(held, 0, heldLength);
+            }
+        }
+    }
+
+    // The container closes the response stream itself
+    private static final class UnclosableOutputStream extends OutputStream {
+
+        private final OutputStream out;
+
+        UnclosableOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
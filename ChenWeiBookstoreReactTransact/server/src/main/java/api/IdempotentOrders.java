@@ -0,0 +1,80 @@
+package api;
+
+import business.order.OrderDetails;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers the orders being placed, and recently placed, on this server by
+ * their Idempotency-Key, so a retried or double-clicked POST /orders gets the
+ * original order's details instead of placing another order.
+ *
+ * Each placement keeps the hash of its request (see OrderRequests). A request
+ * whose key is already being placed for the same request attaches to that
+ * placement and is answered when it finishes, without taking an order
+ * worker; one with a different request is rejected. A placed
+ * order's details are replayed without touching the database for
+ * {@code bookstore.orders.idempotencyTtlMillis} (an hour by default). A
+ * placement that fails is forgotten, so the key can be tried again. Keys
+ * placed longer ago, or by another server, are found in the idempotency_key
+ * table by the order service.
+ */
+final class IdempotentOrders {
+
+    static final String HEADER = "Idempotency-Key";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private static final long TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Long.getLong("bookstore.orders.idempotencyTtlMillis", 60 * 60 * 1000L));
+
+    // Expired keys are swept out once every this many new keys
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private record Placement(String requestHash, CompletableFuture<OrderDetails> details, long startedAt) {}
+
+    private static final ConcurrentHashMap<String, Placement> placements = new ConcurrentHashMap<>();
+    private static final AtomicInteger newKeys = new AtomicInteger();
+
+    private IdempotentOrders() {
+    }
+
+    /**
+     * Returns the placement already started for the key, or null after making
+     * the given future the key's placement, which the caller must then complete.
+     * A placement started for a different request is returned as failed with
+     * ApiException.IdempotencyKeyReused.
+     */
+    static CompletableFuture<OrderDetails> attach(String key, String requestHash,
+                                                  CompletableFuture<OrderDetails> details) {
+        Placement placement = new Placement(requestHash, details, System.nanoTime());
+        while (true) {
+            Placement started = placements.putIfAbsent(key, placement);
+            if (started == null) {
+                details.whenComplete((placed, failure) -> {
+                    if (failure != null) {
+                        placements.remove(key, placement);
+                    }
+                });
+                if (newKeys.incrementAndGet() % SWEEP_INTERVAL == 0) {
+                    placements.values().removeIf(IdempotentOrders::isExpired);
+                }
+                return null;
+            }
+            if (!isExpired(started)) {
+                return started.requestHash().equals(requestHash)
+                        ? started.details()
+                        : CompletableFuture.failedFuture(new ApiException.IdempotencyKeyReused(
+                                "Idempotency-Key was already used for a different order."));
+            }
+            placements.remove(key, started);
+        }
+    }
+
+    // Only placed orders expire; one still being placed is always attached to
+    private static boolean isExpired(Placement placement) {
+        return placement.details().isDone() && System.nanoTime() - placement.startedAt() > TTL_NANOS;
+    }
+}
@@ -0,0 +1,44 @@
+package api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Builds response bodies that write a JSON array row by row while the rows are
+ * read, so a large result is never held in memory as a whole.
+ */
+final class JsonStreams {
+
+    private JsonStreams() {
+    }
+
+    /**
+     * A body that passes an action writing one array element to rows, typically
+     * a DAO forEach method. The rows are read when the body is written, while
+     * the request's unit of work is still open.
+     */
+    static <T> StreamingOutput jsonArray(Consumer<Consumer<T>> rows) {
+        return output -> {
+            try (JsonGenerator generator = ObjectMapperResolver.objectMapper().getFactory().createGenerator(output)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.writeStartArray();
+                try {
+                    rows.accept(row -> {
+                        try {
+                            generator.writeObject(row);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                generator.writeEndArray();
+            }
+        };
+    }
+}
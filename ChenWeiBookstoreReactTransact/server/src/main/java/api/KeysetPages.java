@@ -0,0 +1,76 @@
+package api;
+
+import jakarta.ws.rs.core.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keyset pagination for list endpoints.
+ *
+ * A page is asked for with a limit and an opaque after cursor naming the last
+ * row of the previous page; each page is read with an index range scan from
+ * there, so every page costs the same however deep the client goes. The cursor
+ * for the next page comes back in the X-Next-Cursor header, which is left out
+ * on the last page.
+ */
+final class KeysetPages {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final int MAX_LIMIT = Integer.getInteger("bookstore.pages.maxLimit", 500);
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private KeysetPages() {
+    }
+
+    static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ApiException.ValidationFailure("limit", "Limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+    }
+
+    /**
+     * The key the page starts after, or 0 for the first page. A cursor only
+     * works with the kind of list it came from.
+     */
+    static long decodeCursor(String kind, String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            String decoded = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(kind + ":")) {
+                long key = Long.parseLong(decoded.substring(kind.length() + 1));
+                if (key >= 0) {
+                    return key;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Not base64 or not a number; rejected below
+        }
+        throw new ApiException.ValidationFailure("after", "Invalid page cursor.");
+    }
+
+    static String encodeCursor(String kind, long key) {
+        return ENCODER.encodeToString((kind + ":" + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The response for a page, given up to limit + 1 rows read in key order:
+     * the extra row only tells whether there is a next page.
+     */
+    static <T> Response page(String kind, List<T> rows, int limit, ToLongFunction<T> key) {
+        if (rows.size() <= limit) {
+            return Response.ok(rows).build();
+        }
+        List<T> page = rows.subList(0, limit);
+        return Response.ok(List.copyOf(page))
+                .header(NEXT_CURSOR_HEADER, encodeCursor(kind, key.applyAsLong(page.get(limit - 1))))
+                .build();
+    }
+}
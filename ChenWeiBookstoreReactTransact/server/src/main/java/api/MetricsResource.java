@@ -0,0 +1,138 @@
+package api;
+
+import api.RequestMetricsFilter.EndpointMetrics;
+import business.ApplicationContext;
+import business.InstrumentedDataSource;
+import business.InstrumentedDataSource.StatementStats;
+import business.JdbcUtils;
+import business.LatencyHistogram;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports the figures RequestMetricsFilter collects in the Prometheus text
+ * exposition format: a request counter, a server error (5xx) counter and a
+ * latency summary with p50/p90/p99/p999 for each resource method.
+ *
+ * While JDBC instrumentation is on, it also reports the time spent waiting for
+ * pooled connections and, for each SQL string, its execution time and the rows
+ * it returned or changed (see InstrumentedDataSource).
+ *
+ * GET /api/metrics also reports readiness and how long each warm-up stage
+ * took; load balancers use GET /api/ready (see ApiResource) instead.
+ */
+@Path("metrics")
+public class MetricsResource {
+
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    @GET
+    @Produces(PROMETHEUS_TEXT)
+    public String metrics() {
+        List<EndpointMetrics> endpoints = RequestMetricsFilter.endpoints();
+        StringBuilder text = new StringBuilder(256 + endpoints.size() * 640);
+
+        text.append("# HELP bookstore_http_requests_total Requests handled, by resource method.\n");
+        text.append("# TYPE bookstore_http_requests_total counter\n");
+        for (EndpointMetrics endpoint : endpoints) {
+            sample(text, "bookstore_http_requests_total", endpoint, null)
+                    .append(endpoint.latency().count()).append('\n');
+        }
+
+        text.append("# HELP bookstore_http_request_errors_total Requests answered with a 5xx status, by resource method.\n");
+        text.append("# TYPE bookstore_http_request_errors_total counter\n");
+        for (EndpointMetrics endpoint : endpoints) {
+            sample(text, "bookstore_http_request_errors_total", endpoint, null)
+                    .append(endpoint.errors()).append('\n');
+        }
+
+        text.append("# HELP bookstore_http_request_duration_seconds Request latency, by resource method.\n");
+        text.append("# TYPE bookstore_http_request_duration_seconds summary\n");
+        for (EndpointMetrics endpoint : endpoints) {
+            LatencyHistogram.Snapshot latency = endpoint.latency().snapshot();
+            for (double quantile : QUANTILES) {
+                sample(text, "bookstore_http_request_duration_seconds", endpoint, quantile)
+                        .append(seconds(latency.valueAt(quantile))).append('\n');
+            }
+            sample(text, "bookstore_http_request_duration_seconds_sum", endpoint, null)
+                    .append(seconds(latency.sumNanos())).append('\n');
+            sample(text, "bookstore_http_request_duration_seconds_count", endpoint, null)
+                    .append(latency.count()).append('\n');
+        }
+
+        text.append("# HELP bookstore_ready Whether warm-up has finished.\n");
+        text.append("# TYPE bookstore_ready gauge\n");
+        text.append("bookstore_ready ").append(ApplicationContext.isReady() ? 1 : 0).append('\n');
+        text.append("# HELP bookstore_warmup_stage_seconds How long each warm-up stage took.\n");
+        text.append("# TYPE bookstore_warmup_stage_seconds gauge\n");
+        for (Map.Entry<String, Long> stage : ApplicationContext.getWarmUpMillis().entrySet()) {
+            text.append("bookstore_warmup_stage_seconds{stage=\"").append(escape(stage.getKey())).append("\"} ")
+                    .append(stage.getValue() / 1000.0).append('\n');
+        }
+
+        InstrumentedDataSource dataSource = JdbcUtils.getInstrumentedDataSource();
+        if (dataSource != null) {
+            appendSqlMetrics(text, dataSource);
+        }
+        return text.toString();
+    }
+
+    private static void appendSqlMetrics(StringBuilder text, InstrumentedDataSource dataSource) {
+        text.append("# HELP bookstore_jdbc_pool_acquire_seconds Time spent waiting for a pooled connection.\n");
+        text.append("# TYPE bookstore_jdbc_pool_acquire_seconds summary\n");
+        appendSummary(text, "bookstore_jdbc_pool_acquire_seconds", "", dataSource.poolAcquireLatency().snapshot());
+
+        List<StatementStats> statements = dataSource.statements();
+        text.append("# HELP bookstore_sql_duration_seconds Statement execution time, by SQL string.\n");
+        text.append("# TYPE bookstore_sql_duration_seconds summary\n");
+        for (StatementStats statement : statements) {
+            appendSummary(text, "bookstore_sql_duration_seconds", sqlLabel(statement), statement.latency().snapshot());
+        }
+
+        text.append("# HELP bookstore_sql_rows_total Rows read or changed, by SQL string.\n");
+        text.append("# TYPE bookstore_sql_rows_total counter\n");
+        for (StatementStats statement : statements) {
+            text.append("bookstore_sql_rows_total{").append(sqlLabel(statement)).append("} ")
+                    .append(statement.rows()).append('\n');
+        }
+    }
+
+    private static String sqlLabel(StatementStats statement) {
+        return "sql=\"" + escape(statement.sql()) + "\"";
+    }
+
+    private static void appendSummary(StringBuilder text, String name, String labels, LatencyHistogram.Snapshot latency) {
+        String separator = labels.isEmpty() ? "" : ",";
+        for (double quantile : QUANTILES) {
+            text.append(name).append('{').append(labels).append(separator)
+                    .append("quantile=\"").append(quantile).append("\"} ")
+                    .append(seconds(latency.valueAt(quantile))).append('\n');
+        }
+        text.append(name).append("_sum{").append(labels).append("} ").append(seconds(latency.sumNanos())).append('\n');
+        text.append(name).append("_count{").append(labels).append("} ").append(latency.count()).append('\n');
+    }
+
+    private static StringBuilder sample(StringBuilder text, String name, EndpointMetrics endpoint, Double quantile) {
+        text.append(name).append("{method=\"").append(endpoint.httpMethod())
+                .append("\",path=\"").append(escape(endpoint.path())).append('"');
+        if (quantile != null) {
+            text.append(",quantile=\"").append(quantile).append('"');
+        }
+        return text.append("} ");
+    }
+
+    static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    // Label values escape backslashes, double quotes and newlines
+    static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,25 @@
+package api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.ext.ContextResolver;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Hands Jersey's Jackson provider the one ObjectMapper the application
+ * serializes with, so response bodies, streamed bodies and warm-up all share
+ * its serializer caches.
+ */
+@Provider
+public class ObjectMapperResolver implements ContextResolver<ObjectMapper> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static ObjectMapper objectMapper() {
+        return MAPPER;
+    }
+
+    @Override
+    public ObjectMapper getContext(Class<?> type) {
+        return MAPPER;
+    }
+}
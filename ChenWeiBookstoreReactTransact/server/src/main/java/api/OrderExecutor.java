@@ -0,0 +1,75 @@
+package api;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The executor that places orders off the servlet container's request threads.
+ *
+ * At most {@code bookstore.orders.concurrency} orders run at once (by default
+ * the size of the connection pool) and at most {@code bookstore.orders.queueDepth}
+ * wait behind them; anything beyond that is rejected so the caller can answer 503.
+ * Of the running orders, at most {@code bookstore.orders.connections} (by
+ * default one less than the pool) hold a database connection at a time, so
+ * catalog requests always find one free, and a worker writing its response
+ * holds none.
+ * Worker threads are virtual threads when the JVM supports them (Java 21+),
+ * otherwise daemon platform threads. WarmUpListener shuts it down when the
+ * application is undeployed.
+ */
+final class OrderExecutor {
+
+    static final int CONCURRENCY = Integer.getInteger("bookstore.orders.concurrency", 4);
+    static final int QUEUE_DEPTH = Integer.getInteger("bookstore.orders.queueDepth", 32);
+    static final long TIMEOUT_MILLIS = Long.getLong("bookstore.orders.timeoutMillis", 10_000L);
+    static final int RETRY_AFTER_SECONDS = Integer.getInteger("bookstore.orders.retryAfterSeconds", 2);
+
+    static final Semaphore CONNECTIONS =
+            new Semaphore(Math.max(1, Integer.getInteger("bookstore.orders.connections", CONCURRENCY - 1)));
+
+    static final ExecutorService INSTANCE = new ThreadPoolExecutor(
+            CONCURRENCY, CONCURRENCY,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_DEPTH),
+            threadFactory(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    private OrderExecutor() {
+    }
+
+    /**
+     * Stops taking orders and waits up to TIMEOUT_MILLIS for the ones already
+     * taken to be placed, then interrupts any still running.
+     */
+    static void shutdown() {
+        INSTANCE.shutdown();
+        try {
+            if (!INSTANCE.awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                INSTANCE.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            INSTANCE.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return runnable -> {
+                Thread thread = new Thread(runnable, "order-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+}
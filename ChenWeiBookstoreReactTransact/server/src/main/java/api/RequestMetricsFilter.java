@@ -0,0 +1,130 @@
+package api;
+
+import business.LatencyHistogram;
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts requests and server errors and records latency for each resource
+ * method, for MetricsResource to report.
+ *
+ * Latency runs from when the request has been matched to a resource method to
+ * when the response headers are ready, so it includes async processing but not
+ * writing a streamed body. Requests that match no resource method aren't
+ * recorded. Its priority puts it ahead of the other filters on the way in and
+ * after them on the way out.
+ */
+@Provider
+@Priority(Priorities.AUTHENTICATION - 1)
+public class RequestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String START_NANOS_PROPERTY = RequestMetricsFilter.class.getName() + ".startNanos";
+
+    private static final ConcurrentMap<Method, EndpointMetrics> METRICS_BY_METHOD = new ConcurrentHashMap<>();
+
+    /**
+     * The figures for one resource method, labelled with its HTTP method and
+     * path template.
+     */
+    public static final class EndpointMetrics {
+
+        private final String httpMethod;
+        private final String path;
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private EndpointMetrics(String httpMethod, String path) {
+            this.httpMethod = httpMethod;
+            this.path = path;
+        }
+
+        public String httpMethod() {
+            return httpMethod;
+        }
+
+        public String path() {
+            return path;
+        }
+
+        public long errors() {
+            return errors.sum();
+        }
+
+        public LatencyHistogram latency() {
+            return latency;
+        }
+    }
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        requestContext.setProperty(START_NANOS_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext,
+                       ContainerResponseContext responseContext) throws IOException {
+        Object start = requestContext.getProperty(START_NANOS_PROPERTY);
+        Method method = resourceInfo == null ? null : resourceInfo.getResourceMethod();
+        if (!(start instanceof Long startNanos) || method == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        EndpointMetrics metrics = METRICS_BY_METHOD.get(method);
+        if (metrics == null) {
+            metrics = METRICS_BY_METHOD.computeIfAbsent(method,
+                    m -> new EndpointMetrics(requestContext.getMethod(), pathTemplate(m)));
+        }
+        metrics.latency.record(elapsed);
+        if (responseContext.getStatus() >= 500) {
+            metrics.errors.increment();
+        }
+    }
+
+    /**
+     * Every resource method called so far, ordered by path and HTTP method.
+     */
+    public static List<EndpointMetrics> endpoints() {
+        List<EndpointMetrics> endpoints = new ArrayList<>(METRICS_BY_METHOD.values());
+        endpoints.sort(Comparator.comparing(EndpointMetrics::path).thenComparing(EndpointMetrics::httpMethod));
+        return endpoints;
+    }
+
+    private static String pathTemplate(Method method) {
+        StringBuilder template = new StringBuilder();
+        appendPath(template, method.getDeclaringClass().getAnnotation(Path.class));
+        appendPath(template, method.getAnnotation(Path.class));
+        return template.isEmpty() ? "/" : template.toString();
+    }
+
+    private static void appendPath(StringBuilder template, Path path) {
+        if (path == null) {
+            return;
+        }
+        String value = path.value();
+        for (String segment : value.split("/")) {
+            if (!segment.isEmpty()) {
+                template.append('/').append(segment);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves the React build's content-hashed assets, the files under /static
+ * listed in asset-manifest.json, as immutable for a year: a changed file gets a
+ * new name, so browsers never need to ask about one again.
+ *
+ * A client that accepts gzip gets the .gz copy the build puts next to a text
+ * asset, when there is one. Files of at least bookstore.static.sendfileMinBytes
+ * (64 KiB by default), mostly cover images, are handed to the connector's
+ * sendfile so they go from the file to the socket without passing through the
+ * heap. Only Tomcat's sendfile avoids that copy: without it, and for smaller
+ * files, the file is copied to the response stream like any other.
+ *
+ * index.html names the current hashed files, so it is always revalidated.
+ * Everything else, including range requests, is left to the container.
+ */
+@WebFilter(urlPatterns = "/*", dispatcherTypes = {DispatcherType.REQUEST, DispatcherType.ERROR})
+public class StaticAssetFilter implements Filter {
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private static final String REVALIDATE_CACHE_CONTROL = "no-cache";
+
+    private static final long SENDFILE_MIN_BYTES = Long.getLong("bookstore.static.sendfileMinBytes", 64 * 1024);
+
+    // Request attributes of Tomcat's sendfile support
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final Logger logger = Logger.getLogger(StaticAssetFilter.class.getName());
+
+    private ServletContext servletContext;
+    private Set<String> hashedAssets = Set.of();
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        servletContext = filterConfig.getServletContext();
+        hashedAssets = readManifest(servletContext);
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        String path = request.getServletPath() + (request.getPathInfo() == null ? "" : request.getPathInfo());
+
+        if (path.equals("/") || path.equals("/index.html")) {
+            response.setHeader("Cache-Control", REVALIDATE_CACHE_CONTROL);
+        } else if (hashedAssets.contains(path)) {
+            response.setHeader("Cache-Control", IMMUTABLE_CACHE_CONTROL);
+            if (serve(request, response, path)) {
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    /*
+     * Writes the asset, or its .gz copy, and returns true, or returns false to
+     * leave the request to the container.
+     */
+    private boolean serve(HttpServletRequest request, HttpServletResponse response, String path)
+            throws IOException {
+        boolean head = request.getMethod().equals("HEAD");
+        if (!(head || request.getMethod().equals("GET"))
+                || request.getDispatcherType() != DispatcherType.REQUEST
+                || request.getHeader("Range") != null) {
+            return false;
+        }
+        String realPath = servletContext.getRealPath(path);
+        if (realPath == null) {
+            return false;
+        }
+        Path file = Path.of(realPath);
+        Path gzipped = Path.of(realPath + ".gz");
+        boolean gzip = acceptsGzip(request) && Files.isRegularFile(gzipped);
+        Path body = gzip ? gzipped : file;
+        if (!Files.isRegularFile(body)) {
+            return false;
+        }
+
+        long length = Files.size(body);
+        String contentType = servletContext.getMimeType(path);
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        if (Files.isRegularFile(gzipped)) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        response.setContentLengthLong(length);
+        if (head) {
+            return true;
+        }
+
+        if (length >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, body.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            return true;
+        }
+        Files.copy(body, response.getOutputStream());
+        return true;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        return CompressingOutputStream.GZIP.equals(CompressionInterceptor.negotiate(acceptEncoding));
+    }
+
+    /*
+     * The context-relative paths of the files under /static that
+     * asset-manifest.json lists. Its paths start with the context path.
+     */
+    private Set<String> readManifest(ServletContext servletContext) {
+        Set<String> assets = new HashSet<>();
+        try (InputStream manifest = servletContext.getResourceAsStream("/asset-manifest.json")) {
+            if (manifest == null) {
+                return assets;
+            }
+            JsonNode files = new ObjectMapper().readTree(manifest).path("files");
+            for (Iterator<JsonNode> i = files.elements(); i.hasNext(); ) {
+                String url = i.next().asText();
+                int staticStart = url.indexOf("/static/");
+                if (staticStart >= 0) {
+                    assets.add(url.substring(staticStart));
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, e, () -> "Could not read asset-manifest.json; hashed assets get default caching");
+        }
+        return assets;
+    }
+}
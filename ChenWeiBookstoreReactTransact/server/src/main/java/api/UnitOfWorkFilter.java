@@ -0,0 +1,29 @@
+package api;
+
+import business.UnitOfWork;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+
+import java.io.IOException;
+
+/**
+ * Runs every API request in a unit of work, so all the DAO calls it makes
+ * share one pooled connection that is released once, when the request is done.
+ */
+@WebFilter(urlPatterns = "/api/*", asyncSupported = true)
+public class UnitOfWorkFilter implements Filter {
+
+    // The unit of work is only opened and closed around the chain
+    @Override
+    @SuppressWarnings("try")
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            chain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package api;
+
+import business.ApplicationContext;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+import java.util.Objects;
+
+/**
+ * Starts the application when it is deployed instead of on the first request,
+ * and runs ApplicationContext's warm-up on a thread of its own, so deployment
+ * isn't held up by it. GET /api/ready answers 503 until warm-up is done.
+ *
+ * The application context is created here, on the container's thread, because
+ * that is where the JNDI lookup of the data source works.
+ *
+ * On undeploy, the order executor is stopped once the orders it has taken are
+ * placed, then the context's own background threads, which write out the
+ * stock reservations not yet flushed, so a redeploy doesn't leave threads
+ * behind or lose reservations.
+ */
+@WebListener
+public class WarmUpListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        // Creating the context looks up the data source
+        Objects.requireNonNull(ApplicationContext.INSTANCE);
+        Thread warmUp = new Thread(ApplicationContext::warmUp, "bookstore-warm-up");
+        warmUp.setDaemon(true);
+        warmUp.start();
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        OrderExecutor.shutdown();
+        ApplicationContext.shutdown();
+    }
+}
@@ -2,9 +2,17 @@ package business;
 
 import business.book.BookDao;
 import business.book.BookDaoJdbc;
+import business.book.BookSearchIndex;
+import business.book.CachingBookDao;
+import business.book.StockDaoJdbc;
+import business.book.StockLedger;
 import business.category.CategoryDao;
 import business.category.CategoryDaoJdbc;
+import business.category.CachingCategoryDao;
+import business.order.CachingOrderDetailsDao;
 import business.order.DefaultOrderService;
+import business.order.GroupCommitOrderWriter;
+import business.order.IdempotencyKeyDaoJdbc;
 import business.order.OrderService;
 import business.customer.CustomerDao;
 import business.customer.CustomerDaoJdbc;
@@ -12,32 +20,132 @@ import business.order.OrderDao;
 import business.order.OrderDaoJdbc;
 import business.order.LineItemDao;
 import business.order.LineItemDaoJdbc;
+import business.order.OrderDetailsDao;
+import business.order.OrderDetailsDaoJdbc;
+import business.category.Category;
+import business.book.Book;
+import business.customer.Customer;
+import business.customer.CustomerForm;
+import business.customer.CustomerFormValidator;
+import business.order.LineItem;
+import business.order.Order;
+import business.order.OrderDetails;
+import api.ObjectMapperResolver;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class ApplicationContext {
 
-    private static BookDao bookDao;
-    private static CategoryDao categoryDao;
+    // How long catalog rows stay cached; 0 keeps them until invalidateCatalog()
+    private static final long CATALOG_TTL_MILLIS =
+            Long.getLong("bookstore.catalog.ttlMillis", 5 * 60 * 1000L);
+
+    // How many customer and order ids each server reserves from id_block at a time
+    private static final int ID_BLOCK_SIZE = Integer.getInteger("bookstore.ids.blockSize", 100);
+
+    // How many recently placed or read orders' details are kept in memory
+    private static final int ORDER_DETAILS_CACHE_SIZE =
+            Integer.getInteger("bookstore.orders.detailsCacheSize", 10_000);
+
+    // Reserve stock in memory (see StockLedger) instead of in each order's transaction. Only for a
+    // single server, and reservations made since the last flush are lost if the server crashes.
+    private static final boolean STOCK_LEDGER = Boolean.getBoolean("bookstore.stock.ledger");
+
+    // How often reservations made in memory are written to the book table's stock
+    private static final long STOCK_FLUSH_MILLIS = Long.getLong("bookstore.stock.flushMillis", 100L);
+
+    // Threads placing orders at once (api.OrderExecutor's workers). Each waits for its order's
+    // group commit, so no batch can hold more orders than this and batches default to this size.
+    private static final int ORDER_CONCURRENCY = Integer.getInteger("bookstore.orders.concurrency", 4);
+
+    // Connections opened at once by warm-up, so the pool starts at its full size
+    private static final int WARM_UP_CONNECTIONS = Integer.getInteger("bookstore.warmup.connections", 4);
+
+    private static final Logger LOG = Logger.getLogger(ApplicationContext.class.getName());
+
+    // Synthetic serialization and validation runs in warm-up, enough for the JIT to compile them
+    private static final int WARM_UP_ITERATIONS = Integer.getInteger("bookstore.warmup.iterations", 2000);
+
+    // The DAO classes whose *_SQL statements warm-up prepares
+    private static final List<Class<?>> JDBC_DAO_CLASSES = List.of(
+            CategoryDaoJdbc.class, BookDaoJdbc.class, CustomerDaoJdbc.class, OrderDaoJdbc.class,
+            LineItemDaoJdbc.class, OrderDetailsDaoJdbc.class, StockDaoJdbc.class,
+            IdempotencyKeyDaoJdbc.class, IdAllocator.class);
+
+    private static CachingBookDao bookDao;
+    private static CachingCategoryDao categoryDao;
     private static OrderService orderService;
     private static CustomerDao customerDao;
     private static OrderDao orderDao;
     private static LineItemDao lineItemDao;
+    private static OrderDetailsDao orderDetailsDao;
+    private static StockLedger stockLedger;
+    private static GroupCommitOrderWriter orderWriter;
+    private static final AtomicLong catalogVersion = new AtomicLong(1);
+    private static final AtomicReference<CompletableFuture<BookSearchIndex>> bookSearchIndex = new AtomicReference<>();
+    // Counts rebuilds, so a build only replaces the index if no later one has started
+    private static final AtomicLong bookSearchIndexGeneration = new AtomicLong();
+    private static final Map<String, Long> warmUpMillis = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static volatile boolean ready;
     public static final ApplicationContext INSTANCE = new ApplicationContext();
 
     private ApplicationContext() {
         // 初始化 DAO
-        categoryDao = new CategoryDaoJdbc();
-        bookDao = new BookDaoJdbc();
+        categoryDao = new CachingCategoryDao(new CategoryDaoJdbc(), CATALOG_TTL_MILLIS);
+        bookDao = new CachingBookDao(new BookDaoJdbc(), CATALOG_TTL_MILLIS);
         customerDao = new CustomerDaoJdbc();
         orderDao = new OrderDaoJdbc();
         lineItemDao = new LineItemDaoJdbc();
+        CachingOrderDetailsDao cachingOrderDetailsDao =
+                new CachingOrderDetailsDao(new OrderDetailsDaoJdbc(), ORDER_DETAILS_CACHE_SIZE);
+        orderDetailsDao = cachingOrderDetailsDao;
 
         DefaultOrderService defaultOrderService = new DefaultOrderService();
         defaultOrderService.setBookDao(bookDao);
         defaultOrderService.setCustomerDao(customerDao);
         defaultOrderService.setOrderDao(orderDao);
         defaultOrderService.setLineItemDao(lineItemDao);
+        defaultOrderService.setOrderDetailsDao(orderDetailsDao);
+        defaultOrderService.setOrderDetailsCache(cachingOrderDetailsDao);
+        defaultOrderService.setCustomerIdAllocator(new IdAllocator("customer", "customer_id", ID_BLOCK_SIZE));
+        defaultOrderService.setOrderIdAllocator(new IdAllocator("customer_order", "customer_order_id", ID_BLOCK_SIZE));
+        StockDaoJdbc stockDao = new StockDaoJdbc();
+        defaultOrderService.setStockDao(stockDao);
+        if (STOCK_LEDGER) {
+            stockLedger = new StockLedger(stockDao, STOCK_FLUSH_MILLIS);
+            defaultOrderService.setStockLedger(stockLedger);
+        }
+        defaultOrderService.setIdempotencyKeyDao(new IdempotencyKeyDaoJdbc());
+        if (Boolean.getBoolean("bookstore.orders.groupCommit")) {
+            orderWriter = new GroupCommitOrderWriter(
+                    Integer.getInteger("bookstore.orders.groupCommit.batchSize", ORDER_CONCURRENCY),
+                    Long.getLong("bookstore.orders.groupCommit.maxWaitMillis", 2L),
+                    Integer.getInteger("bookstore.orders.groupCommit.queueDepth", ORDER_CONCURRENCY),
+                    Long.getLong("bookstore.orders.groupCommit.timeoutMillis", 10_000L));
+            defaultOrderService.setOrderWriter(orderWriter);
+        }
 
         orderService = defaultOrderService;
+
+        rebuildBookSearchIndex();
     }
 
     public static CategoryDao getCategoryDao() {
@@ -63,4 +171,243 @@ public class ApplicationContext {
     public static LineItemDao getLineItemDao() {
         return lineItemDao;
     }
+
+    public static OrderDetailsDao getOrderDetailsDao() {
+        return orderDetailsDao;
+    }
+
+    /**
+     * The search index over the whole catalog, waiting for it if it is still
+     * being built. A build that failed is started again.
+     */
+    public static BookSearchIndex getBookSearchIndex() {
+        CompletableFuture<BookSearchIndex> build = bookSearchIndex.get();
+        try {
+            return build.join();
+        } catch (CompletionException e) {
+            bookSearchIndex.compareAndSet(build, startBookSearchIndexBuild());
+            throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+        }
+    }
+
+    /**
+     * Drops every cached book and category so the next lookups go to the database.
+     * With the stock ledger on, stock is read from the book table again too, after
+     * pending reservations are written.
+     */
+    public static void invalidateCatalog() {
+        categoryDao.invalidate();
+        bookDao.invalidate();
+        if (stockLedger != null) {
+            stockLedger.invalidateAll();
+        }
+        catalogVersion.incrementAndGet();
+        rebuildBookSearchIndex();
+    }
+
+    // The old index keeps answering searches until the new one is built
+    private static void rebuildBookSearchIndex() {
+        long generation = bookSearchIndexGeneration.incrementAndGet();
+        CompletableFuture<BookSearchIndex> previous = bookSearchIndex.get();
+        CompletableFuture<BookSearchIndex> build = startBookSearchIndexBuild();
+        if (previous == null || !previous.isDone() || previous.isCompletedExceptionally()) {
+            installBookSearchIndex(generation, build);
+        } else {
+            build.thenAccept(index -> installBookSearchIndex(generation, CompletableFuture.completedFuture(index)));
+        }
+    }
+
+    // Builds can finish out of order; one that a later rebuild has overtaken is dropped
+    private static void installBookSearchIndex(long generation, CompletableFuture<BookSearchIndex> build) {
+        CompletableFuture<BookSearchIndex> current;
+        do {
+            current = bookSearchIndex.get();
+            if (bookSearchIndexGeneration.get() != generation) {
+                return;
+            }
+        } while (!bookSearchIndex.compareAndSet(current, build));
+    }
+
+    private static CompletableFuture<BookSearchIndex> startBookSearchIndexBuild() {
+        try {
+            JdbcUtils.dataSource();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return CompletableFuture.supplyAsync(() -> BookSearchIndex.build(categoryDao, bookDao));
+    }
+
+    /**
+     * A number that changes every time the catalog is invalidated, used in catalog ETags.
+     */
+    public static long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    public static long getCatalogCacheHits() {
+        return categoryDao.getHitCount() + bookDao.getHitCount();
+    }
+
+    public static long getCatalogCacheMisses() {
+        return categoryDao.getMissCount() + bookDao.getMissCount();
+    }
+
+    /**
+     * Whether warm-up has finished (or was skipped), so the server can take
+     * traffic without its first users paying for cold caches and code.
+     */
+    public static boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * How long each warm-up stage took, in milliseconds, in the order they ran.
+     */
+    public static Map<String, Long> getWarmUpMillis() {
+        synchronized (warmUpMillis) {
+            return new LinkedHashMap<>(warmUpMillis);
+        }
+    }
+
+    /**
+     * Stops the background threads the context started, writing out what
+     * they still hold. Call it when the application is undeployed, after the
+     * order executor has stopped.
+     */
+    public static void shutdown() {
+        if (orderWriter != null) {
+            orderWriter.close();
+        }
+        if (stockLedger != null) {
+            stockLedger.close();
+        }
+    }
+
+    /**
+     * Runs the warm-up stages, then reports the server ready. Each stage is
+     * timed and logged; one that fails is logged and the rest still run, since
+     * warm-up only saves the first requests some time.
+     *
+     * Call it after the data source has been looked up on a container thread.
+     * With -Dbookstore.warmup.skip=true the server is reported ready at once.
+     */
+    public static void warmUp() {
+        if (!Boolean.getBoolean("bookstore.warmup.skip")) {
+            long start = System.nanoTime();
+            runWarmUpStage("pool", ApplicationContext::warmUpPool);
+            runWarmUpStage("statements", ApplicationContext::warmUpStatements);
+            runWarmUpStage("catalog", ApplicationContext::warmUpCatalog);
+            runWarmUpStage("serialization", ApplicationContext::warmUpSerialization);
+            runWarmUpStage("validation", ApplicationContext::warmUpValidation);
+            LOG.info("Warm-up finished in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        ready = true;
+    }
+
+    private interface WarmUpStage {
+        void run() throws Exception;
+    }
+
+    private static void runWarmUpStage(String name, WarmUpStage stage) {
+        long start = System.nanoTime();
+        try {
+            stage.run();
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Warm-up stage " + name + " failed", e);
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        warmUpMillis.put(name, millis);
+        LOG.info("Warm-up stage " + name + " took " + millis + " ms");
+    }
+
+    // Borrowed all at once, so the pool has to open that many
+    private static void warmUpPool() throws SQLException {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < WARM_UP_CONNECTIONS; i++) {
+                connections.add(JdbcUtils.openConnection());
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    /*
+     * Prepares every DAO statement on every pooled connection, borrowed all at
+     * once like in warmUpPool. With the server-side prepared statements and
+     * statement cache turned on in context.xml, each connection keeps them
+     * prepared for the requests that later borrow it.
+     */
+    private static void warmUpStatements() throws SQLException, IllegalAccessException {
+        List<String> statements = new ArrayList<>();
+        for (Class<?> daoClass : JDBC_DAO_CLASSES) {
+            for (Field field : daoClass.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class
+                        && field.getName().endsWith("_SQL")) {
+                    field.setAccessible(true);
+                    statements.add((String) field.get(null));
+                }
+            }
+        }
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < WARM_UP_CONNECTIONS; i++) {
+                Connection connection = JdbcUtils.openConnection();
+                connections.add(connection);
+                for (String sql : statements) {
+                    connection.prepareStatement(sql).close();
+                }
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    private static void warmUpCatalog() {
+        for (Category category : categoryDao.findAll()) {
+            bookDao.findByCategoryId(category.categoryId());
+        }
+        getBookSearchIndex();
+    }
+
+    /*
+     * Serializes the catalog and a made-up order's details with the mapper
+     * the API writes responses with, filling its serializer caches.
+     */
+    private static void warmUpSerialization() throws JsonProcessingException {
+        ObjectMapper objectMapper = ObjectMapperResolver.objectMapper();
+        List<Category> categories = categoryDao.findAll();
+        List<Book> books = categories.isEmpty() ? List.of() : bookDao.findByCategoryId(categories.get(0).categoryId());
+        List<LineItem> lineItems = new ArrayList<>();
+        for (Book book : books) {
+            lineItems.add(new LineItem(book.bookId(), 1, 1));
+        }
+        OrderDetails orderDetails = new OrderDetails(
+                new Order(1, 5000, new Date(), 123456789, 1),
+                new Customer(1, "Warm Up", "1 Main Street", "5405551234", "warm.up@example.com",
+                        "4111111111111111", new Date()),
+                lineItems, books);
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            objectMapper.writeValueAsBytes(categories);
+            objectMapper.writeValueAsBytes(books);
+            objectMapper.writeValueAsBytes(orderDetails);
+        }
+    }
+
+    private static void warmUpValidation() {
+        CustomerFormValidator validator = new CustomerFormValidator();
+        String expiryYear = String.valueOf(YearMonth.now().plusYears(2).getYear());
+        CustomerForm validForm = new CustomerForm("Warm Up", "1 Main Street",
+                "(540) 555-1234", "warm.up@example.com", "4111 1111 1111 1111", "3", expiryYear);
+        CustomerForm invalidForm = new CustomerForm("W", "",
+                "540-555", "warm.up.example.com", "4111", "13", expiryYear);
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            validator.validate(validForm);
+            validator.validate(invalidForm);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package business;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.h2.tools.RunScript;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+
+/**
+ * An in-memory H2 database in MySQL mode, loaded from schema.sql and data.sql,
+ * for running the application, load tests and benchmarks without a MySQL
+ * server. JdbcUtils uses it instead of the JNDI data source when the server
+ * runs with -Dbookstore.db=embedded or BOOKSTORE_DB=embedded.
+ *
+ * The pool has the same four connections as the container's pool, and the data
+ * lasts as long as the JVM.
+ */
+public final class EmbeddedDatabase {
+
+    private static final String URL =
+            "jdbc:h2:mem:bookstore;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final int MAX_CONNECTIONS = Integer.getInteger("bookstore.db.embedded.maxConnections", 4);
+
+    private static final Logger LOG = Logger.getLogger(EmbeddedDatabase.class.getName());
+
+    private static JdbcConnectionPool pool;
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * Whether the embedded database was asked for, by system property or
+     * environment variable.
+     */
+    public static boolean isSelected() {
+        String db = System.getProperty("bookstore.db", System.getenv("BOOKSTORE_DB"));
+        return "embedded".equalsIgnoreCase(db);
+    }
+
+    /**
+     * Creates and loads the database the first time, and returns its pool.
+     */
+    public static synchronized DataSource start() {
+        if (pool != null) {
+            return pool;
+        }
+        long start = System.nanoTime();
+        JdbcConnectionPool newPool = JdbcConnectionPool.create(URL, "sa", "");
+        newPool.setMaxConnections(MAX_CONNECTIONS);
+        try (Connection connection = newPool.getConnection()) {
+            runScript(connection, "/schema.sql");
+            runScript(connection, "/data.sql");
+        } catch (SQLException e) {
+            newPool.dispose();
+            throw new BookstoreDbException("Could not load the embedded database", e);
+        }
+        pool = newPool;
+        LOG.info("Embedded database loaded in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return pool;
+    }
+
+    private static void runScript(Connection connection, String resource) throws SQLException {
+        InputStream script = EmbeddedDatabase.class.getResourceAsStream(resource);
+        if (script == null) {
+            throw new BookstoreDbException("No " + resource + " on the classpath");
+        }
+        try (Reader reader = new InputStreamReader(script, StandardCharsets.UTF_8)) {
+            RunScript.execute(connection, reader);
+        } catch (IOException e) {
+            throw new BookstoreDbException("Could not read " + resource, e);
+        }
+    }
+}
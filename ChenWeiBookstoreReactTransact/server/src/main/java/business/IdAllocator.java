@@ -0,0 +1,113 @@
+package business;
+
+import business.BookstoreDbException.BookstoreUpdateDbException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out primary keys for one table from blocks reserved in the id_block table,
+ * so rows can be inserted with their ids already known instead of waiting for
+ * AUTO_INCREMENT keys.
+ *
+ * Taking an id from the current block is a single atomic increment. Only when a
+ * block runs out does one thread reserve the next one, with a compare-and-set
+ * update of id_block in auto-commit mode. A sequence that has no id_block row yet
+ * starts after the largest id already in the table.
+ *
+ * Ids left in a block when the application stops are never used.
+ */
+public class IdAllocator {
+
+    private static final String FIND_NEXT_ID_SQL =
+            "SELECT next_id FROM id_block WHERE name = ?";
+
+    private static final String RESERVE_BLOCK_SQL =
+            "UPDATE id_block SET next_id = ? WHERE name = ? AND next_id = ?";
+
+    private record Block(AtomicLong next, long end) {}
+
+    private final String sequenceName;
+    private final String createSequenceSql;
+    private final int blockSize;
+    private volatile Block block = new Block(new AtomicLong(), 0);
+
+    /**
+     * @param tableName the table the ids are for, also used as the sequence name
+     * @param idColumn its primary key column
+     */
+    public IdAllocator(String tableName, String idColumn, int blockSize) {
+        this.sequenceName = tableName;
+        this.createSequenceSql = "INSERT INTO id_block (name, next_id) " +
+                "SELECT ?, COALESCE(MAX(" + idColumn + "), 0) + 1 FROM " + tableName;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns an id no other caller gets. Must not be called inside an open
+     * transaction on the current unit of work's connection, since reserving a
+     * block has to commit on its own.
+     */
+    public long nextId() {
+        while (true) {
+            Block current = block;
+            long id = current.next().getAndIncrement();
+            if (id < current.end()) {
+                return id;
+            }
+            refill(current);
+        }
+    }
+
+    private synchronized void refill(Block exhausted) {
+        if (block != exhausted) {
+            return;
+        }
+        long start = reserveBlock();
+        block = new Block(new AtomicLong(start), start + blockSize);
+    }
+
+    private long reserveBlock() {
+        try (Connection connection = JdbcUtils.getConnection()) {
+            while (true) {
+                Long nextId = findNextId(connection);
+                if (nextId == null) {
+                    createSequence(connection);
+                    continue;
+                }
+                try (PreparedStatement statement = connection.prepareStatement(RESERVE_BLOCK_SQL)) {
+                    statement.setLong(1, nextId + blockSize);
+                    statement.setString(2, sequenceName);
+                    statement.setLong(3, nextId);
+                    if (statement.executeUpdate() == 1) {
+                        return nextId;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new BookstoreUpdateDbException("Encountered problem reserving ids for " + sequenceName, e);
+        }
+    }
+
+    private Long findNextId(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(FIND_NEXT_ID_SQL)) {
+            statement.setString(1, sequenceName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong("next_id") : null;
+            }
+        }
+    }
+
+    private void createSequence(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(createSequenceSql)) {
+            statement.setString(1, sequenceName);
+            statement.executeUpdate();
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Another server created it first
+        }
+    }
+}
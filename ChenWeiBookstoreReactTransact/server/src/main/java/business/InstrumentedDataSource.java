@@ -0,0 +1,279 @@
+package business;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Wraps the pool's data source to time what the database work of a request is
+ * spent on: waiting for a pooled connection, and executing each SQL string,
+ * with the rows each one returned or changed.
+ *
+ * Statements are timed from the execute call until it returns, so a query's
+ * time doesn't include reading its rows; those are counted as they are read.
+ * Statements slower than the slow-query threshold are logged, as warnings of
+ * this class's logger, with the method that ran them.
+ *
+ * At most MAX_STATEMENTS distinct SQL strings are tracked; statements beyond
+ * that are counted together under OTHER_STATEMENTS.
+ */
+public class InstrumentedDataSource implements DataSource {
+
+    public static final String OTHER_STATEMENTS = "(other)";
+
+    private static final int MAX_STATEMENTS = 1000;
+
+    private static final Logger SLOW_QUERY_LOG = Logger.getLogger(InstrumentedDataSource.class.getName());
+
+    /**
+     * The figures for one SQL string.
+     */
+    public static final class StatementStats {
+
+        private final String sql;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+
+        private StatementStats(String sql) {
+            this.sql = sql;
+        }
+
+        public String sql() {
+            return sql;
+        }
+
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        public long rows() {
+            return rows.sum();
+        }
+    }
+
+    private final DataSource dataSource;
+    private final long slowQueryNanos;
+    private final LatencyHistogram poolAcquireLatency = new LatencyHistogram();
+    private final ConcurrentMap<String, StatementStats> statsBySql = new ConcurrentHashMap<>();
+
+    public InstrumentedDataSource(DataSource dataSource, long slowQueryMillis) {
+        this.dataSource = dataSource;
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+    }
+
+    public LatencyHistogram poolAcquireLatency() {
+        return poolAcquireLatency;
+    }
+
+    /**
+     * Every SQL string executed so far, the most time-consuming first.
+     */
+    public List<StatementStats> statements() {
+        List<StatementStats> statements = new ArrayList<>(statsBySql.values());
+        statements.sort(Comparator.comparingLong((StatementStats stats) -> stats.latency().sumNanos()).reversed());
+        return statements;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = dataSource.getConnection();
+        poolAcquireLatency.record(System.nanoTime() - start);
+        return wrap(connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = dataSource.getConnection(username, password);
+        poolAcquireLatency.record(System.nanoTime() - start);
+        return wrap(connection);
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private StatementStats statsFor(String sql) {
+        StatementStats stats = statsBySql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        if (statsBySql.size() >= MAX_STATEMENTS) {
+            sql = OTHER_STATEMENTS;
+        }
+        return statsBySql.computeIfAbsent(sql, StatementStats::new);
+    }
+
+    private void logSlowStatement(String sql, long nanos) {
+        String caller = StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> isCaller(frame.getClassName()))
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName())
+                .findFirst()).orElse("unknown");
+        SLOW_QUERY_LOG.warning(() -> String.format("Slow SQL (%d ms) in %s: %s",
+                TimeUnit.NANOSECONDS.toMillis(nanos), caller, sql));
+    }
+
+    // The first frame that isn't this class, the unit of work or JDBC plumbing
+    private static boolean isCaller(String className) {
+        return !className.startsWith(InstrumentedDataSource.class.getName())
+                && !className.startsWith(UnitOfWork.class.getName())
+                && !className.startsWith("java.")
+                && !className.startsWith("jdk.")
+                && !className.startsWith("com.sun.proxy.")
+                && !className.contains("$Proxy");
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(connection, method, args);
+            if (result instanceof Statement statement) {
+                // prepareStatement and prepareCall take the SQL up front, createStatement at execution
+                String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                return Proxy.newProxyInstance(
+                        Statement.class.getClassLoader(),
+                        new Class<?>[]{method.getReturnType()},
+                        new StatementHandler(statement, sql));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final String preparedSql;
+
+        StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return InstrumentedDataSource.invoke(statement, method, args);
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String given ? given : preparedSql;
+            long start = System.nanoTime();
+            Object result = InstrumentedDataSource.invoke(statement, method, args);
+            long elapsed = System.nanoTime() - start;
+
+            StatementStats stats = statsFor(sql == null ? OTHER_STATEMENTS : sql);
+            stats.latency.record(elapsed);
+            if (elapsed >= slowQueryNanos) {
+                logSlowStatement(stats.sql, elapsed);
+            }
+            if (result instanceof ResultSet resultSet) {
+                return Proxy.newProxyInstance(
+                        ResultSet.class.getClassLoader(),
+                        new Class<?>[]{ResultSet.class},
+                        new ResultSetHandler(resultSet, stats));
+            }
+            countUpdates(stats, result);
+            return result;
+        }
+
+        private void countUpdates(StatementStats stats, Object result) {
+            if (result instanceof Integer count && count > 0) {
+                stats.rows.add(count);
+            } else if (result instanceof Long count && count > 0) {
+                stats.rows.add(count);
+            } else if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    if (count > 0) {
+                        stats.rows.add(count);
+                    }
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    if (count > 0) {
+                        stats.rows.add(count);
+                    }
+                }
+            }
+        }
+    }
+
+    private record ResultSetHandler(ResultSet resultSet, StatementStats stats) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(resultSet, method, args);
+            if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                stats.rows.increment();
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+}
@@ -5,6 +5,8 @@ import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import business.BookstoreDbException.BookstoreConnectionDbException;
 
@@ -12,19 +14,88 @@ public class JdbcUtils {
 
     private static final String JDBC_BOOKSTORE = "jdbc/ChenWeiBookstore";
 
-    private static DataSource dataSource;
+    // Rows fetched per round trip by streaming statements; needs useCursorFetch=true on MySQL
+    private static final int STREAMING_FETCH_SIZE = Integer.getInteger("bookstore.jdbc.streamingFetchSize", 500);
 
+    // Set -Dbookstore.jdbc.instrumented=false to hand out the pool's connections unwrapped
+    private static final boolean INSTRUMENTED =
+            Boolean.parseBoolean(System.getProperty("bookstore.jdbc.instrumented", "true"));
+
+    private static final long SLOW_QUERY_MILLIS = Long.getLong("bookstore.jdbc.slowQueryMillis", 200);
+
+    private static volatile DataSource dataSource;
+
+    /**
+     * Returns the connection of the current unit of work, if one is open,
+     * otherwise a connection of its own from the pool.
+     */
     public static Connection getConnection() {
-        if (dataSource == null) {
-            dataSource = getDataSource(JDBC_BOOKSTORE);
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            return unitOfWork.getConnection();
         }
+        return openConnection();
+    }
+
+    static Connection openConnection() {
         try {
-            return dataSource.getConnection();
+            return dataSource().getConnection();
         } catch (SQLException e) {
             throw new BookstoreConnectionDbException("Encountered a SQL issue getting a connection", e);
         }
     }
 
+    /**
+     * Looks up the data source if that hasn't happened yet. The JNDI lookup only
+     * works on container threads, so do this before handing database work to
+     * threads of our own.
+     *
+     * With the embedded profile selected (see EmbeddedDatabase) the in-memory
+     * database is used instead of JNDI. Unless instrumentation is turned off,
+     * the pool is wrapped in an InstrumentedDataSource.
+     */
+    static DataSource dataSource() {
+        if (dataSource == null) {
+            synchronized (JdbcUtils.class) {
+                if (dataSource == null) {
+                    DataSource pool = EmbeddedDatabase.isSelected()
+                            ? EmbeddedDatabase.start()
+                            : getDataSource(JDBC_BOOKSTORE);
+                    dataSource = INSTRUMENTED ? new InstrumentedDataSource(pool, SLOW_QUERY_MILLIS) : pool;
+                }
+            }
+        }
+        return dataSource;
+    }
+
+    /**
+     * The instrumented data source in use, or null when instrumentation is off
+     * or no connection has been asked for yet.
+     */
+    public static InstrumentedDataSource getInstrumentedDataSource() {
+        return dataSource instanceof InstrumentedDataSource instrumented ? instrumented : null;
+    }
+
+    /**
+     * Prepares a forward-only, read-only statement that fetches its rows a few
+     * hundred at a time instead of all at once, for results read once in order.
+     */
+    public static PreparedStatement prepareStreamingStatement(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(STREAMING_FETCH_SIZE);
+        return statement;
+    }
+
+    /**
+     * Replaces the JNDI data source, for code running outside the servlet
+     * container such as the benchmarks. It is used as given, without
+     * instrumentation.
+     */
+    public static void setDataSource(DataSource dataSource) {
+        JdbcUtils.dataSource = dataSource;
+    }
+
     private static DataSource getDataSource(String dataSourceName) {
         try {
             InitialContext initialContext = new InitialContext();
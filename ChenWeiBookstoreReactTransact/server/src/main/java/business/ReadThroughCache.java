@@ -0,0 +1,135 @@
+package business;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A small concurrent read-through cache used by the caching DAOs.
+ *
+ * Values are loaded on a miss with the supplied loader and kept until they are
+ * older than the time-to-live or the cache is invalidated. A time-to-live of
+ * zero or less keeps entries until they are invalidated explicitly.
+ * Null values are never cached, so a missing row is looked up again next time.
+ *
+ * Each invalidation starts a new generation. A value is cached with the
+ * generation in which its load started, and values from an earlier generation
+ * are never returned, so a load that overlaps an invalidation can't bring the
+ * old value back.
+ */
+public class ReadThroughCache<K, V> {
+
+    private record Entry<V>(V value, long loadedAt, long generation) {}
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ReadThroughCache(long ttlMillis) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        misses.increment();
+        long loadGeneration = generation.get();
+        value = loader.apply(key);
+        if (value != null) {
+            put(key, value, loadGeneration);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the values for all the keys, loading every missing key with a
+     * single call to the bulk loader. Keys the loader has no value for are
+     * left out of the result.
+     */
+    public Map<K, V> getAll(Collection<K> keys,
+                            Function<? super List<K>, ? extends Map<K, V>> bulkLoader) {
+        Map<K, V> values = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        for (K key : keys) {
+            V value = getIfPresent(key);
+            if (value != null) {
+                values.put(key, value);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            misses.add(missing.size());
+            long loadGeneration = generation.get();
+            Map<K, V> loaded = bulkLoader.apply(missing);
+            loaded.forEach((key, value) -> put(key, value, loadGeneration));
+            values.putAll(loaded);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the cached value for the key, counting a hit, or null without
+     * counting anything when it is absent or expired.
+     */
+    public V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry) || entry.generation() != generation.get()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    /**
+     * The current generation, to pass to put() for a value about to be read.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches a value read after generation() returned the given generation,
+     * unless the cache has been invalidated since.
+     */
+    public void put(K key, V value, long loadGeneration) {
+        if (loadGeneration == generation.get()) {
+            entries.put(key, new Entry<>(value, System.nanoTime(), loadGeneration));
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return ttlNanos > 0 && System.nanoTime() - entry.loadedAt() > ttlNanos;
+    }
+}
@@ -0,0 +1,119 @@
+package business;
+
+import business.BookstoreDbException.BookstoreConnectionDbException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Binds one pooled connection to the current thread for the length of a unit
+ * of work, typically one API request.
+ *
+ * While a unit of work is open, JdbcUtils.getConnection() hands every DAO the
+ * same connection, borrowed from the pool on first use. DAOs keep closing their
+ * connections as usual, but closing the shared handle does nothing: a DAO
+ * called while another holds the connection in a transaction must not end
+ * that transaction. Code that turns auto-commit off turns it back on when its
+ * transaction is done. When the unit of work is closed, anything still
+ * uncommitted is rolled back and the connection goes back to the pool.
+ *
+ * Beginning a unit of work while one is already open joins the outer one.
+ */
+public final class UnitOfWork implements AutoCloseable {
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final boolean owner;
+    private Connection connection;
+    private Connection sharedConnection;
+
+    private UnitOfWork(boolean owner) {
+        this.owner = owner;
+    }
+
+    public static UnitOfWork begin() {
+        if (CURRENT.get() != null) {
+            return new UnitOfWork(false);
+        }
+        UnitOfWork unitOfWork = new UnitOfWork(true);
+        CURRENT.set(unitOfWork);
+        return unitOfWork;
+    }
+
+    static UnitOfWork current() {
+        return CURRENT.get();
+    }
+
+    Connection getConnection() {
+        if (sharedConnection == null) {
+            connection = JdbcUtils.openConnection();
+            sharedConnection = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new SharedConnectionHandler(connection));
+        }
+        return sharedConnection;
+    }
+
+    /**
+     * Hands the current unit of work's connection back to the pool early, for
+     * example before blocking on work done by another thread. A later
+     * JdbcUtils.getConnection() in the same unit of work borrows a new one.
+     */
+    public static void releaseConnection() {
+        UnitOfWork unitOfWork = CURRENT.get();
+        if (unitOfWork != null) {
+            unitOfWork.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!owner) {
+            return;
+        }
+        CURRENT.remove();
+        release();
+    }
+
+    private void release() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            reset(connection);
+            connection.close();
+        } catch (SQLException e) {
+            throw new BookstoreConnectionDbException("Encountered a SQL issue releasing a connection", e);
+        } finally {
+            connection = null;
+            sharedConnection = null;
+        }
+    }
+
+    private static void reset(Connection connection) throws SQLException {
+        if (!connection.isClosed() && !connection.getAutoCommit()) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private record SharedConnectionHandler(Connection connection) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                return null;
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
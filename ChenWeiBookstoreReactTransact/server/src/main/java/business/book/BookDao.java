@@ -1,6 +1,9 @@
 package business.book;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface BookDao {
 
@@ -8,6 +11,22 @@ public interface BookDao {
 
     public List<Book> findByCategoryId(long categoryId);
 
+    /**
+     * Hands each book in the category to the action as it is read, without
+     * collecting them in a list first.
+     */
+    public void forEachByCategoryId(long categoryId, Consumer<Book> action);
+
+    /**
+     * Returns up to limit books in the category with ids above afterBookId, in book id order.
+     */
+    public List<Book> findByCategoryIdAfter(long categoryId, long afterBookId, int limit);
+
+    /**
+     * Looks up many books at once. Ids with no matching book are left out of the result.
+     */
+    public Map<Long, Book> findByBookIds(Collection<Long> bookIds);
+
     public List<Book> findRandomByCategoryId(long categoryId, int limit);
 
 }
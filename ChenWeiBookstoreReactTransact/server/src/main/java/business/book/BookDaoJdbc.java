@@ -9,7 +9,12 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import business.BookstoreDbException.BookstoreQueryDbException;
 
 public class BookDaoJdbc implements BookDao {
@@ -25,13 +30,22 @@ public class BookDaoJdbc implements BookDao {
                     "WHERE category_id = ?";
     // TODO Implement this constant to be used in the findByCategoryId method
 
-    private static final String FIND_RANDOM_BY_CATEGORY_ID_SQL =
+    // A range scan of the category_id index, which ends in book_id
+    private static final String FIND_BY_CATEGORY_ID_AFTER_SQL =
             "SELECT book_id, title, author, description, price, rating, is_public, is_featured, category_id " +
                     "FROM book " +
-                    "WHERE category_id = ? " +
-                    "ORDER BY RAND() " +
+                    "WHERE category_id = ? AND book_id > ? " +
+                    "ORDER BY book_id " +
                     "LIMIT ?";
 
+    private static final String FIND_BY_BOOK_IDS_SQL_PREFIX =
+            "SELECT book_id, title, author, description, price, rating, is_public, is_featured, category_id " +
+                    "FROM book " +
+                    "WHERE book_id IN (";
+
+    // Keeps each IN (...) list well under driver and server placeholder limits
+    private static final int FIND_BY_BOOK_IDS_CHUNK_SIZE = 500;
+
     @Override
     public Book findByBookId(long bookId) {
         Book book = null;
@@ -70,14 +84,30 @@ public class BookDaoJdbc implements BookDao {
     }
 
     @Override
-    public List<Book> findRandomByCategoryId(long categoryId, int limit) {
-        List<Book> books = new ArrayList<>();
-
+    public void forEachByCategoryId(long categoryId, Consumer<Book> action) {
         try (Connection connection = JdbcUtils.getConnection();
-             PreparedStatement statement = connection.prepareStatement(FIND_RANDOM_BY_CATEGORY_ID_SQL)) {
+             PreparedStatement statement = JdbcUtils.prepareStreamingStatement(connection, FIND_BY_CATEGORY_ID_SQL)) {
+            statement.setLong(1, categoryId);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    action.accept(readBook(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            throw new BookstoreQueryDbException("Encountered a problem streaming books by category " + categoryId, e);
+        }
+    }
+
+    @Override
+    public List<Book> findByCategoryIdAfter(long categoryId, long afterBookId, int limit) {
+        List<Book> books = new ArrayList<>(limit);
 
+        try (Connection connection = JdbcUtils.getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_BY_CATEGORY_ID_AFTER_SQL)) {
             statement.setLong(1, categoryId);
-            statement.setInt(2, limit);
+            statement.setLong(2, afterBookId);
+            statement.setInt(3, limit);
 
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
@@ -85,12 +115,62 @@ public class BookDaoJdbc implements BookDao {
                 }
             }
         } catch (SQLException e) {
-            throw new BookstoreQueryDbException("Encountered a problem finding random books by category " + categoryId, e);
+            throw new BookstoreQueryDbException("Encountered a problem finding a page of books in category " + categoryId, e);
+        }
+        return books;
+    }
+
+    @Override
+    public Map<Long, Book> findByBookIds(Collection<Long> bookIds) {
+        Map<Long, Book> books = new HashMap<>();
+        if (bookIds.isEmpty()) {
+            return books;
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(bookIds));
+
+        try (Connection connection = JdbcUtils.getConnection()) {
+            for (int from = 0; from < ids.size(); from += FIND_BY_BOOK_IDS_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + FIND_BY_BOOK_IDS_CHUNK_SIZE, ids.size()));
+                try (PreparedStatement statement = connection.prepareStatement(findByBookIdsSql(chunk.size()))) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setLong(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            Book book = readBook(resultSet);
+                            books.put(book.bookId(), book);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new BookstoreQueryDbException("Encountered a problem finding books " + ids, e);
         }
 
         return books;
     }
 
+    /**
+     * Samples the category listing in memory rather than asking the database
+     * to sort the category with ORDER BY RAND().
+     */
+    @Override
+    public List<Book> findRandomByCategoryId(long categoryId, int limit) {
+        List<Book> books = findByCategoryId(categoryId);
+        List<Book> sample = new ArrayList<>();
+        for (int position : BookSuggestionEngine.samplePositions(books.size(), limit)) {
+            sample.add(books.get(position));
+        }
+        return sample;
+    }
+
+    private static String findByBookIdsSql(int idCount) {
+        StringBuilder sql = new StringBuilder(FIND_BY_BOOK_IDS_SQL_PREFIX);
+        for (int i = 0; i < idCount; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(")").toString();
+    }
 
     private Book readBook(ResultSet resultSet) throws SQLException {
         // TODO add description, isFeatured, rating to Book results
@@ -0,0 +1,526 @@
+package business.book;
+
+import business.category.Category;
+import business.category.CategoryDao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * An in-memory inverted index over the title, author and description of every
+ * book, ranked with BM25.
+ *
+ * Each indexed book gets a dense document number; every term maps to a posting
+ * list of document numbers and term frequencies held in primitive int arrays,
+ * and every category to the list of its document numbers. Posting lists also
+ * keep the best frequency and shortest document of each block of 64 postings,
+ * so searches can skip blocks that can't reach the top results.
+ * Title and author words count more than description words. Only book and
+ * category ids are kept per document, so the books themselves are looked up
+ * through the BookDao afterwards.
+ *
+ * The index is built whole and never changed afterwards: ApplicationContext
+ * builds a new one on every catalog change and swaps it in when it is ready.
+ */
+public class BookSearchIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in",
+            "is", "it", "its", "of", "on", "or", "that", "the", "this", "to", "was", "with");
+
+    /*
+     * The most any document in a posting list can score for the term, before
+     * the idf, as long as the average document length is at most averageLength.
+     */
+    private record ImpactBound(float averageLength, float maxImpact) {}
+
+    private static final ImpactBound NO_BOUND = new ImpactBound(0, Float.POSITIVE_INFINITY);
+
+    // Posting lists are split into blocks of this many postings (1 << BLOCK_SHIFT)
+    private static final int BLOCK_SHIFT = 6;
+
+    // The longest posting list that is scored up front to prime the search threshold
+    private static final int MAX_PRIMING_POSTINGS = 4096;
+
+    private static final class Postings {
+        int[] docs = new int[2];
+        int[] freqs = new int[2];
+        // Per block, the highest frequency and the shortest document in it
+        int[] blockMaxFreqs = new int[1];
+        int[] blockMinLengths = new int[1];
+        int size;
+        volatile ImpactBound bound = NO_BOUND;
+
+        void add(int doc, int freq, int length) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            int block = size >>> BLOCK_SHIFT;
+            if (block == blockMaxFreqs.length) {
+                blockMaxFreqs = Arrays.copyOf(blockMaxFreqs, block * 2);
+                blockMinLengths = Arrays.copyOf(blockMinLengths, block * 2);
+            }
+            if ((size & ((1 << BLOCK_SHIFT) - 1)) == 0) {
+                blockMaxFreqs[block] = freq;
+                blockMinLengths[block] = length;
+            } else {
+                blockMaxFreqs[block] = Math.max(blockMaxFreqs[block], freq);
+                blockMinLengths[block] = Math.min(blockMinLengths[block], length);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        /*
+         * The first position from the given one on whose document is at least
+         * target, or size if there is none: a galloping search, since the
+         * documents are in ascending order.
+         */
+        int advance(int from, int target) {
+            int low = from;
+            int high = from;
+            int step = 1;
+            while (high < size && docs[high] < target) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high, size);
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (docs[middle] < target) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /*
+     * One query term during a search: where the search is in its postings, and
+     * the most any single document can score for it.
+     */
+    private static final class TermCursor {
+        final Postings postings;
+        final float idf;
+        final float maxScore;
+        int position;
+        int checkedBlock = -1;
+
+        TermCursor(Postings postings, float idf, float maxImpact) {
+            this.postings = postings;
+            this.idf = idf;
+            this.maxScore = idf * maxImpact;
+        }
+
+        boolean at(int doc) {
+            return position < postings.size && postings.docs[position] == doc;
+        }
+    }
+
+    /*
+     * The best documents so far, as a min-heap with the weakest at the root.
+     * Equal scores rank the earlier document first.
+     */
+    private static final class TopDocs {
+        final int[] docs;
+        final float[] scores;
+        int size;
+
+        TopDocs(int limit) {
+            docs = new int[limit];
+            scores = new float[limit];
+        }
+
+        boolean isFull() {
+            return size == docs.length;
+        }
+
+        // The score a document must beat to get in
+        float threshold() {
+            return size < docs.length ? 0 : scores[0];
+        }
+
+        boolean offer(int doc, float score) {
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+                return true;
+            }
+            if (score <= scores[0]) {
+                return false;
+            }
+            docs[0] = doc;
+            scores[0] = score;
+            siftDown();
+            return true;
+        }
+
+        long[] bookIds(long[] bookIdsByDoc) {
+            long[] result = new long[size];
+            while (size > 0) {
+                result[size - 1] = bookIdsByDoc[docs[0]];
+                size--;
+                docs[0] = docs[size];
+                scores[0] = scores[size];
+                siftDown();
+            }
+            return result;
+        }
+
+        private boolean weaker(int i, int j) {
+            return scores[i] < scores[j] || (scores[i] == scores[j] && docs[i] > docs[j]);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!weaker(i, parent)) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown() {
+            int i = 0;
+            while (true) {
+                int weakest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && weaker(left, weakest)) {
+                    weakest = left;
+                }
+                if (right < size && weaker(right, weakest)) {
+                    weakest = right;
+                }
+                if (weakest == i) {
+                    return;
+                }
+                swap(i, weakest);
+                i = weakest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int doc = docs[i];
+            docs[i] = docs[j];
+            docs[j] = doc;
+            float score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postingsByTerm = new HashMap<>();
+    private final Map<Long, Postings> docsByCategoryId = new HashMap<>();
+    private long[] bookIds = new long[64];
+    private int[] lengths = new int[64];
+    private int docCount;
+    private long totalLength;
+
+    /**
+     * Indexes every book in every category.
+     */
+    public static BookSearchIndex build(CategoryDao categoryDao, BookDao bookDao) {
+        BookSearchIndex index = new BookSearchIndex();
+        for (Category category : categoryDao.findAll()) {
+            bookDao.forEachByCategoryId(category.categoryId(), index::index);
+        }
+        return index;
+    }
+
+    // Adds a book, while the index is being built
+    void index(Book book) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = addTerms(frequencies, book.title(), TITLE_WEIGHT)
+                + addTerms(frequencies, book.author(), AUTHOR_WEIGHT)
+                + addTerms(frequencies, book.description(), DESCRIPTION_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            int doc = docCount++;
+            if (doc == bookIds.length) {
+                bookIds = Arrays.copyOf(bookIds, doc * 2);
+                lengths = Arrays.copyOf(lengths, doc * 2);
+            }
+            bookIds[doc] = book.bookId();
+            lengths[doc] = length;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                Postings postings = postingsByTerm.computeIfAbsent(entry.getKey(), term -> new Postings());
+                postings.add(doc, entry.getValue(), length);
+                ImpactBound bound = postings.bound;
+                if (bound != NO_BOUND) {
+                    float impact = impact(entry.getValue(), length, bound.averageLength());
+                    postings.bound = new ImpactBound(bound.averageLength(), Math.max(bound.maxImpact(), impact));
+                }
+            }
+            docsByCategoryId.computeIfAbsent(book.categoryId(), categoryId -> new Postings()).add(doc, 0, 0);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the best matching books, best first.
+     *
+     * Documents are scored in document order across the posting lists of all
+     * query terms (MaxScore): once the top results are known well enough that
+     * the rarely helpful terms together can no longer lift a document into
+     * them, only documents in the remaining lists are visited, and the others
+     * are merely probed for those documents. A query mixing a rare and a very
+     * common word therefore costs about as much as the rare word alone.
+     *
+     * @param categoryId only books in this category, or 0 for any category
+     */
+    public long[] search(String query, long categoryId, int limit) {
+        Set<String> words = new LinkedHashSet<>();
+        tokenize(query, words::add);
+        if (words.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+
+        lock.readLock().lock();
+        try {
+            float averageLength = docCount == 0 ? 1 : (float) totalLength / docCount;
+            List<TermCursor> cursors = new ArrayList<>(words.size());
+            for (String word : words) {
+                Postings postings = postingsByTerm.get(word);
+                if (postings != null) {
+                    int documentFrequency = postings.size;
+                    float idf = (float) Math.log(1 + (docCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                    cursors.add(new TermCursor(postings, idf, maxImpact(postings, averageLength)));
+                }
+            }
+            // The category's documents, which the search leaps through along with the terms
+            Postings category = categoryId == 0 ? null : docsByCategoryId.get(categoryId);
+            if (cursors.isEmpty() || (categoryId != 0 && category == null)) {
+                return new long[0];
+            }
+            int categoryPosition = 0;
+            cursors.sort((a, b) -> Float.compare(a.maxScore, b.maxScore));
+            TermCursor[] terms = cursors.toArray(new TermCursor[0]);
+            float[] maxScoreUpTo = new float[terms.length];
+            float sum = 0;
+            for (int i = 0; i < terms.length; i++) {
+                sum += terms[i].maxScore;
+                maxScoreUpTo[i] = sum;
+            }
+
+            TopDocs top = new TopDocs(limit);
+            // Only documents scoring above threshold can still get into the top results
+            float threshold = primedThreshold(terms, category, limit, averageLength);
+            // Terms before firstEssential can't get a document into the top results on their own
+            int firstEssential = 0;
+            while (firstEssential < terms.length && maxScoreUpTo[firstEssential] <= threshold) {
+                firstEssential++;
+            }
+            while (firstEssential < terms.length) {
+                int doc = Integer.MAX_VALUE;
+                for (int i = firstEssential; i < terms.length; i++) {
+                    TermCursor term = terms[i];
+                    if (threshold > 0) {
+                        skipBlocks(term, threshold - (maxScoreUpTo[terms.length - 1] - term.maxScore), averageLength);
+                    }
+                    if (term.position < term.postings.size) {
+                        doc = Math.min(doc, term.postings.docs[term.position]);
+                    }
+                }
+                if (doc == Integer.MAX_VALUE) {
+                    break;
+                }
+                if (category != null) {
+                    categoryPosition = category.advance(categoryPosition, doc);
+                    if (categoryPosition == category.size) {
+                        break;
+                    }
+                    int next = category.docs[categoryPosition];
+                    if (next != doc) {
+                        for (int i = firstEssential; i < terms.length; i++) {
+                            terms[i].position = terms[i].postings.advance(terms[i].position, next);
+                        }
+                        continue;
+                    }
+                }
+
+                float score = 0;
+                for (int i = firstEssential; i < terms.length; i++) {
+                    TermCursor term = terms[i];
+                    if (term.at(doc)) {
+                        score += score(term, doc, averageLength);
+                        term.position++;
+                    }
+                }
+                for (int i = firstEssential - 1; i >= 0 && score + maxScoreUpTo[i] > threshold; i--) {
+                    TermCursor term = terms[i];
+                    term.position = term.postings.advance(term.position, doc);
+                    if (term.at(doc)) {
+                        score += score(term, doc, averageLength);
+                    }
+                }
+                if (score > threshold && top.offer(doc, score)) {
+                    threshold = Math.max(threshold, top.threshold());
+                    while (firstEssential < terms.length && maxScoreUpTo[firstEssential] <= threshold) {
+                        firstEssential++;
+                    }
+                }
+            }
+            return top.bookIds(bookIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Scores the documents of the most selective term up front when it is short,
+     * and returns just under the score of the limit-th best of them. That many
+     * documents are known to score at least that much, so the main pass can skip
+     * everything below it from the start instead of filling its top results with
+     * documents that only match the common terms.
+     */
+    private float primedThreshold(TermCursor[] terms, Postings category, int limit, float averageLength) {
+        TermCursor lead = terms[terms.length - 1];
+        if (terms.length == 1 || lead.postings.size > MAX_PRIMING_POSTINGS) {
+            return 0;
+        }
+        int[] positions = new int[terms.length];
+        int categoryPosition = 0;
+        TopDocs primed = new TopDocs(limit);
+        for (int p = 0; p < lead.postings.size; p++) {
+            int doc = lead.postings.docs[p];
+            if (category != null) {
+                categoryPosition = category.advance(categoryPosition, doc);
+                if (categoryPosition == category.size) {
+                    break;
+                }
+                if (category.docs[categoryPosition] != doc) {
+                    continue;
+                }
+            }
+            float score = lead.idf * impact(lead.postings.freqs[p], lengths[doc], averageLength);
+            for (int i = 0; i < terms.length - 1; i++) {
+                TermCursor term = terms[i];
+                positions[i] = term.postings.advance(positions[i], doc);
+                if (positions[i] < term.postings.size && term.postings.docs[positions[i]] == doc) {
+                    score += term.idf * impact(term.postings.freqs[positions[i]], lengths[doc], averageLength);
+                }
+            }
+            primed.offer(doc, score);
+        }
+        // Documents tying with the limit-th best may still win on document order
+        return primed.isFull() ? Math.nextDown(primed.threshold()) : 0;
+    }
+
+    private float score(TermCursor term, int doc, float averageLength) {
+        return term.idf * impact(term.postings.freqs[term.position], lengths[doc], averageLength);
+    }
+
+    /*
+     * Moves past the blocks of the term's postings whose documents can't score
+     * more than needed for it: with every other term at its best, they still
+     * couldn't beat the top results. Each block is checked once.
+     */
+    private static void skipBlocks(TermCursor term, float needed, float averageLength) {
+        Postings postings = term.postings;
+        while (term.position < postings.size) {
+            int block = term.position >>> BLOCK_SHIFT;
+            if (block == term.checkedBlock) {
+                return;
+            }
+            float bound = term.idf * impact(postings.blockMaxFreqs[block], postings.blockMinLengths[block], averageLength);
+            if (bound > needed) {
+                term.checkedBlock = block;
+                return;
+            }
+            term.position = (block + 1) << BLOCK_SHIFT;
+        }
+    }
+
+    private static float impact(float frequency, int length, float averageLength) {
+        return frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+    }
+
+    /*
+     * The exact highest impact in the posting list, computed for an average
+     * length a little above the current one so it stays valid (scores only grow
+     * with the average length) until the average drifts past that. Kept up to
+     * date as documents are added.
+     */
+    private float maxImpact(Postings postings, float averageLength) {
+        ImpactBound bound = postings.bound;
+        if (averageLength > bound.averageLength()) {
+            float boundAverageLength = averageLength * 1.05f;
+            float maxImpact = 0;
+            for (int i = 0; i < postings.size; i++) {
+                maxImpact = Math.max(maxImpact, impact(postings.freqs[i], lengths[postings.docs[i]], boundAverageLength));
+            }
+            bound = new ImpactBound(boundAverageLength, maxImpact);
+            postings.bound = bound;
+        }
+        return bound.maxImpact();
+    }
+
+    private static int addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        List<String> terms = new ArrayList<>();
+        tokenize(text, terms::add);
+        for (String term : terms) {
+            frequencies.merge(term, weight, Integer::sum);
+        }
+        return terms.size() * weight;
+    }
+
+    /*
+     * Splits text into lower-case runs of letters and digits, leaving out stop
+     * words and single characters.
+     */
+    private static void tokenize(String text, Consumer<String> terms) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+            } else if (!term.isEmpty()) {
+                String value = term.toString();
+                if (value.length() > 1 && !STOP_WORDS.contains(value)) {
+                    terms.accept(value);
+                }
+                term.setLength(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package business.book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks random books from a category without asking the database to sort it.
+ *
+ * For each category the engine keeps a compact array of book ids, built from
+ * the (cached) category listing of the BookDao it is given. A suggestion draws
+ * distinct ids with a sparse partial Fisher-Yates shuffle and resolves them through
+ * the same BookDao, which serves them from its cache. When the BookDao hands
+ * back a different category listing (after expiry or invalidation), the id
+ * array for that category is rebuilt.
+ */
+public class BookSuggestionEngine {
+
+    private record CategoryIds(List<Book> source, long[] bookIds) {}
+
+    private final BookDao bookDao;
+    private final Map<Long, CategoryIds> idsByCategory = new ConcurrentHashMap<>();
+
+    public BookSuggestionEngine(BookDao bookDao) {
+        this.bookDao = bookDao;
+    }
+
+    public List<Book> suggest(long categoryId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        long[] bookIds = categoryIds(categoryId);
+        long[] sample = new long[Math.min(limit, bookIds.length)];
+        int[] positions = samplePositions(bookIds.length, sample.length);
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = bookIds[positions[i]];
+        }
+
+        Map<Long, Book> books = bookDao.findByBookIds(Arrays.stream(sample).boxed().toList());
+        List<Book> result = new ArrayList<>(sample.length);
+        for (long bookId : sample) {
+            Book book = books.get(bookId);
+            if (book != null) {
+                result.add(book);
+            }
+        }
+        return result;
+    }
+
+    public void refresh() {
+        idsByCategory.clear();
+    }
+
+    private long[] categoryIds(long categoryId) {
+        List<Book> books = bookDao.findByCategoryId(categoryId);
+        CategoryIds ids = idsByCategory.get(categoryId);
+        if (ids == null || ids.source() != books) {
+            long[] bookIds = new long[books.size()];
+            for (int i = 0; i < bookIds.length; i++) {
+                bookIds[i] = books.get(i).bookId();
+            }
+            ids = new CategoryIds(books, bookIds);
+            idsByCategory.put(categoryId, ids);
+        }
+        return ids.bookIds();
+    }
+
+    /**
+     * Draws min(count, size) distinct positions below size in random order.
+     *
+     * This is a partial Fisher-Yates shuffle of the positions 0..size-1 that
+     * only records the positions it has swapped, so a draw costs O(count)
+     * time and memory whatever the size.
+     */
+    static int[] samplePositions(int size, int count) {
+        int[] sample = new int[Math.max(0, Math.min(count, size))];
+        Map<Integer, Integer> swapped = new HashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < sample.length; i++) {
+            int j = i + random.nextInt(size - i);
+            sample[i] = swapped.getOrDefault(j, j);
+            swapped.put(j, swapped.getOrDefault(i, i));
+        }
+        return sample;
+    }
+}
@@ -0,0 +1,118 @@
+package business.book;
+
+import business.ReadThroughCache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A BookDao that keeps books in memory in front of another BookDao.
+ *
+ * Books are indexed by book id and by category id. Loading a category
+ * also fills the book id index, so browsing a category and then opening
+ * one of its books costs a single query. Random suggestions are drawn
+ * from the cached category listing by a BookSuggestionEngine.
+ */
+public class CachingBookDao implements BookDao {
+
+    // A category's listing as the delegate returns it, and its books by book id for paging
+    private record CategoryBooks(List<Book> books, List<Book> byBookId, long[] bookIds) {
+
+        static CategoryBooks of(List<Book> books) {
+            List<Book> byBookId = books.stream().sorted(Comparator.comparingLong(Book::bookId)).toList();
+            return new CategoryBooks(books, byBookId, byBookId.stream().mapToLong(Book::bookId).toArray());
+        }
+
+        List<Book> after(long afterBookId, int limit) {
+            int from = Arrays.binarySearch(bookIds, afterBookId);
+            from = from >= 0 ? from + 1 : -from - 1;
+            return byBookId.subList(from, Math.min(from + limit, byBookId.size()));
+        }
+    }
+
+    private final BookDao delegate;
+    private final ReadThroughCache<Long, Book> booksById;
+    private final ReadThroughCache<Long, CategoryBooks> booksByCategoryId;
+    private final BookSuggestionEngine suggestionEngine;
+
+    public CachingBookDao(BookDao delegate, long ttlMillis) {
+        this.delegate = delegate;
+        this.booksById = new ReadThroughCache<>(ttlMillis);
+        this.booksByCategoryId = new ReadThroughCache<>(ttlMillis);
+        this.suggestionEngine = new BookSuggestionEngine(this);
+    }
+
+    @Override
+    public Book findByBookId(long bookId) {
+        return booksById.get(bookId, delegate::findByBookId);
+    }
+
+    @Override
+    public List<Book> findByCategoryId(long categoryId) {
+        return booksByCategoryId.get(categoryId, this::loadCategory).books();
+    }
+
+    /**
+     * Walks the cached listing if the category is cached, otherwise streams it
+     * from the delegate without caching it.
+     */
+    @Override
+    public void forEachByCategoryId(long categoryId, Consumer<Book> action) {
+        CategoryBooks books = booksByCategoryId.getIfPresent(categoryId);
+        if (books != null) {
+            books.books().forEach(action);
+        } else {
+            delegate.forEachByCategoryId(categoryId, action);
+        }
+    }
+
+    /**
+     * Pages through the cached listing if the category is cached, finding the
+     * cursor by binary search, otherwise reads just the page from the delegate.
+     */
+    @Override
+    public List<Book> findByCategoryIdAfter(long categoryId, long afterBookId, int limit) {
+        CategoryBooks books = booksByCategoryId.getIfPresent(categoryId);
+        if (books == null) {
+            return delegate.findByCategoryIdAfter(categoryId, afterBookId, limit);
+        }
+        return books.after(afterBookId, limit);
+    }
+
+    @Override
+    public Map<Long, Book> findByBookIds(Collection<Long> bookIds) {
+        return booksById.getAll(bookIds, delegate::findByBookIds);
+    }
+
+    @Override
+    public List<Book> findRandomByCategoryId(long categoryId, int limit) {
+        return suggestionEngine.suggest(categoryId, limit);
+    }
+
+    public void invalidate() {
+        booksById.invalidateAll();
+        booksByCategoryId.invalidateAll();
+        suggestionEngine.refresh();
+    }
+
+    public long getHitCount() {
+        return booksById.getHitCount() + booksByCategoryId.getHitCount();
+    }
+
+    public long getMissCount() {
+        return booksById.getMissCount() + booksByCategoryId.getMissCount();
+    }
+
+    private CategoryBooks loadCategory(long categoryId) {
+        long byIdGeneration = booksById.generation();
+        List<Book> books = List.copyOf(delegate.findByCategoryId(categoryId));
+        for (Book book : books) {
+            booksById.put(book.bookId(), book, byIdGeneration);
+        }
+        return CategoryBooks.of(books);
+    }
+}
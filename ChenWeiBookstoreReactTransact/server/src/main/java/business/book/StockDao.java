@@ -0,0 +1,29 @@
+package business.book;
+
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.Map;
+import java.util.OptionalLong;
+
+public interface StockDao {
+
+    /**
+     * Reads the stock of many books at once. Ids with no matching book are left out of the result.
+     */
+    public Map<Long, Integer> findStock(Collection<Long> bookIds);
+
+    /**
+     * Takes the given quantities, by book id, off the books' stock in one
+     * transaction. A negative quantity puts stock back.
+     */
+    public void subtract(Map<Long, Integer> quantities);
+
+    /**
+     * Takes the given quantities, by book id, off the books' stock on the
+     * given connection, in its transaction, as long as each book has enough
+     * left. Returns the id of the first book, in book id order, that has too
+     * few copies, and then the caller must roll the transaction back; returns
+     * nothing when every quantity was taken.
+     */
+    public OptionalLong take(Connection connection, Map<Long, Integer> quantities);
+}
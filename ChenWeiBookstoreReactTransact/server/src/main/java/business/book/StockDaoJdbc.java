@@ -0,0 +1,114 @@
+package business.book;
+
+import business.JdbcUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import business.BookstoreDbException.BookstoreQueryDbException;
+import business.BookstoreDbException.BookstoreUpdateDbException;
+
+public class StockDaoJdbc implements StockDao {
+
+    private static final String FIND_STOCK_SQL_PREFIX =
+            "SELECT book_id, stock FROM book WHERE book_id IN (";
+
+    private static final int FIND_STOCK_CHUNK_SIZE = 500;
+
+    private static final String SUBTRACT_STOCK_SQL =
+            "UPDATE book SET stock = stock - ? WHERE book_id = ?";
+
+    private static final String TAKE_STOCK_SQL =
+            "UPDATE book SET stock = stock - ? WHERE book_id = ? AND stock >= ?";
+
+    @Override
+    public Map<Long, Integer> findStock(Collection<Long> bookIds) {
+        Map<Long, Integer> stock = new HashMap<>();
+        if (bookIds.isEmpty()) {
+            return stock;
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(bookIds));
+
+        try (Connection connection = JdbcUtils.getConnection()) {
+            for (int from = 0; from < ids.size(); from += FIND_STOCK_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + FIND_STOCK_CHUNK_SIZE, ids.size()));
+                try (PreparedStatement statement = connection.prepareStatement(findStockSql(chunk.size()))) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setLong(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            stock.put(resultSet.getLong("book_id"), resultSet.getInt("stock"));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new BookstoreQueryDbException("Encountered a problem finding the stock of books " + ids, e);
+        }
+        return stock;
+    }
+
+    @Override
+    public void subtract(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        try (Connection connection = JdbcUtils.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(SUBTRACT_STOCK_SQL)) {
+                // Rows are locked in book id order, so concurrent updates can't deadlock
+                for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+                    statement.setInt(1, entry.getValue());
+                    statement.setLong(2, entry.getKey());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                // Closing a unit of work's shared connection leaves its auto-commit as it is
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new BookstoreUpdateDbException("Encountered a problem updating the stock of books " + quantities.keySet(), e);
+        }
+    }
+
+    @Override
+    public OptionalLong take(Connection connection, Map<Long, Integer> quantities) {
+        try (PreparedStatement statement = connection.prepareStatement(TAKE_STOCK_SQL)) {
+            // Rows are locked in book id order, so concurrent orders can't deadlock
+            for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+                statement.setInt(1, entry.getValue());
+                statement.setLong(2, entry.getKey());
+                statement.setInt(3, entry.getValue());
+                if (statement.executeUpdate() != 1) {
+                    return OptionalLong.of(entry.getKey());
+                }
+            }
+            return OptionalLong.empty();
+        } catch (SQLException e) {
+            throw new BookstoreUpdateDbException("Encountered a problem taking the stock of books " + quantities.keySet(), e);
+        }
+    }
+
+    private static String findStockSql(int idCount) {
+        StringBuilder sql = new StringBuilder(FIND_STOCK_SQL_PREFIX);
+        for (int i = 0; i < idCount; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(")").toString();
+    }
+}
@@ -0,0 +1,206 @@
+package business.book;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the stock of each book in memory, so checkouts reserve copies with a
+ * compare-and-set on a counter instead of each updating the same hot book
+ * rows in their transactions.
+ *
+ * A book's counter is read from the database the first time the book is
+ * reserved. Reservations are also counted as not yet written, and a
+ * background thread takes them off the book table every flushMillis, in one
+ * transaction for all books. Releasing a reservation puts the copies back in
+ * both places. A flush that fails is retried with the next one.
+ *
+ * It is off unless the server runs with -Dbookstore.stock.ledger=true, and
+ * then has two limits. It assumes it is the only one selling: run one server,
+ * or give each server its own share of the stock. And reservations are only
+ * written every flushMillis: close() stops the background thread and flushes
+ * one last time, but those not yet flushed when the server crashes are lost,
+ * so the book table then shows more stock than was left; invalidateAll()
+ * after correcting it. Without the ledger, each order takes its copies off
+ * the book table in its own transaction (see StockDao.take()).
+ */
+public class StockLedger {
+
+    private static final Logger LOG = Logger.getLogger(StockLedger.class.getName());
+
+    private final StockDao stockDao;
+    private final ScheduledExecutorService flusher;
+    private final Map<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> unflushed = new ConcurrentHashMap<>();
+
+    // Loading and flushing both read the book table against the unflushed counts
+    private final Object flushLock = new Object();
+
+    // Held shared while a reservation moves copies between the two maps, and exclusively by
+    // invalidateAll(), so no counter is forgotten between a take and its unflushed count.
+    // Taken before flushLock.
+    private final ReadWriteLock countersLock = new ReentrantReadWriteLock();
+
+    public StockLedger(StockDao stockDao, long flushMillis) {
+        this.stockDao = stockDao;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-ledger-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reserves the given quantities, by book id, all or nothing. Returns the id
+     * of the first book, in book id order, that has too few copies left, or
+     * nothing when every quantity was reserved. Unknown books have no stock.
+     */
+    public OptionalLong reserve(Map<Long, Integer> quantities) {
+        countersLock.readLock().lock();
+        try {
+            // The read lock keeps invalidateAll() from forgetting the loaded counters meanwhile
+            load(quantities.keySet());
+            Map<Long, Integer> reserved = new HashMap<>();
+            for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+                long bookId = entry.getKey();
+                int quantity = entry.getValue();
+                if (!tryTake(available.get(bookId), quantity)) {
+                    putBack(reserved);
+                    return OptionalLong.of(bookId);
+                }
+                unflushed.computeIfAbsent(bookId, id -> new AtomicInteger()).addAndGet(quantity);
+                reserved.put(bookId, quantity);
+            }
+            return OptionalLong.empty();
+        } finally {
+            countersLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Puts back reserved quantities, by book id, for an order that was not placed.
+     */
+    public void release(Map<Long, Integer> quantities) {
+        countersLock.readLock().lock();
+        try {
+            putBack(quantities);
+        } finally {
+            countersLock.readLock().unlock();
+        }
+    }
+
+    private void putBack(Map<Long, Integer> quantities) {
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            unflushed.computeIfAbsent(entry.getKey(), id -> new AtomicInteger()).addAndGet(-entry.getValue());
+            AtomicInteger counter = available.get(entry.getKey());
+            if (counter != null) {
+                counter.addAndGet(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Writes the reservations made since the last flush to the book table.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Long, Integer> quantities = new HashMap<>();
+            for (Map.Entry<Long, AtomicInteger> entry : unflushed.entrySet()) {
+                int quantity = entry.getValue().getAndSet(0);
+                if (quantity != 0) {
+                    quantities.put(entry.getKey(), quantity);
+                }
+            }
+            try {
+                stockDao.subtract(quantities);
+            } catch (RuntimeException e) {
+                quantities.forEach((bookId, quantity) -> unflushed.get(bookId).addAndGet(quantity));
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Flushes, then forgets every counter, so each book's stock is read from
+     * the book table again, after it has been restocked there.
+     */
+    public void invalidateAll() {
+        countersLock.writeLock().lock();
+        try {
+            synchronized (flushLock) {
+                flush();
+                available.clear();
+            }
+        } finally {
+            countersLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops the background flushes, waiting for one under way, then writes
+     * the reservations still unflushed. Call it after the last order has been
+     * placed.
+     */
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Stock flush failed, retrying with the next one", e);
+        }
+    }
+
+    // Counters start from the stored stock less what is reserved but not yet stored
+    private void load(Iterable<Long> bookIds) {
+        List<Long> missing = new ArrayList<>();
+        for (Long bookId : bookIds) {
+            if (!available.containsKey(bookId)) {
+                missing.add(bookId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        synchronized (flushLock) {
+            Map<Long, Integer> stock = stockDao.findStock(missing);
+            for (Long bookId : missing) {
+                AtomicInteger pending = unflushed.get(bookId);
+                int left = stock.getOrDefault(bookId, 0) - (pending == null ? 0 : pending.get());
+                available.putIfAbsent(bookId, new AtomicInteger(left));
+            }
+        }
+    }
+
+    private static boolean tryTake(AtomicInteger counter, int quantity) {
+        int left;
+        do {
+            left = counter.get();
+            if (left < quantity) {
+                return false;
+            }
+        } while (!counter.compareAndSet(left, left - quantity));
+        return true;
+    }
+}
@@ -0,0 +1,68 @@
+package business.category;
+
+import business.ReadThroughCache;
+
+import java.util.List;
+
+/**
+ * A CategoryDao that keeps categories in memory in front of another CategoryDao.
+ *
+ * Categories are indexed by category id and by name. Loading the full
+ * category list also fills both indexes.
+ */
+public class CachingCategoryDao implements CategoryDao {
+
+    private static final String ALL_CATEGORIES = "*";
+
+    private final CategoryDao delegate;
+    private final ReadThroughCache<String, List<Category>> allCategories;
+    private final ReadThroughCache<Long, Category> categoriesById;
+    private final ReadThroughCache<String, Category> categoriesByName;
+
+    public CachingCategoryDao(CategoryDao delegate, long ttlMillis) {
+        this.delegate = delegate;
+        this.allCategories = new ReadThroughCache<>(ttlMillis);
+        this.categoriesById = new ReadThroughCache<>(ttlMillis);
+        this.categoriesByName = new ReadThroughCache<>(ttlMillis);
+    }
+
+    @Override
+    public List<Category> findAll() {
+        return allCategories.get(ALL_CATEGORIES, key -> loadAll());
+    }
+
+    @Override
+    public Category findByCategoryId(long categoryId) {
+        return categoriesById.get(categoryId, delegate::findByCategoryId);
+    }
+
+    @Override
+    public Category findByName(String categoryName) {
+        return categoriesByName.get(categoryName, delegate::findByName);
+    }
+
+    public void invalidate() {
+        allCategories.invalidateAll();
+        categoriesById.invalidateAll();
+        categoriesByName.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return allCategories.getHitCount() + categoriesById.getHitCount() + categoriesByName.getHitCount();
+    }
+
+    public long getMissCount() {
+        return allCategories.getMissCount() + categoriesById.getMissCount() + categoriesByName.getMissCount();
+    }
+
+    private List<Category> loadAll() {
+        long byIdGeneration = categoriesById.generation();
+        long byNameGeneration = categoriesByName.generation();
+        List<Category> categories = List.copyOf(delegate.findAll());
+        for (Category category : categories) {
+            categoriesById.put(category.categoryId(), category, byIdGeneration);
+            categoriesByName.put(category.name(), category, byNameGeneration);
+        }
+        return categories;
+    }
+}
@@ -3,10 +3,17 @@ package business.customer;
 import java.sql.Connection;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface CustomerDao {
 
-    public long create(Connection connection,
+    /**
+     * Inserts a customer with the given customer key (see CustomerKeys), or
+     * none if customerKey is null. Fails if either the id or the key is taken.
+     */
+    public void create(Connection connection,
+                       long customerId,
+                       String customerKey,
                        String customerName,
                        String address,
                        String phone,
@@ -14,8 +21,40 @@ public interface CustomerDao {
                        String ccNumber,
                        Date ccExpDate);
 
+    /**
+     * Gives the returning customer with the given id and customer key these
+     * details. Fails if no customer has both, so a customer with the same id
+     * but another key is never overwritten. Locks only the customer's row,
+     * until the transaction ends.
+     */
+    public void update(Connection connection,
+                       long customerId,
+                       String customerKey,
+                       String customerName,
+                       String address,
+                       String phone,
+                       String email,
+                       String ccNumber,
+                       Date ccExpDate);
+
+    /**
+     * Returns the id of the customer with the given customer key, or null if
+     * there is none.
+     */
+    public Long findIdByCustomerKey(String customerKey);
+
     public List<Customer> findAll();
 
+    /**
+     * Hands each customer to the action as it is read, without collecting them in a list first.
+     */
+    public void forEach(Consumer<Customer> action);
+
+    /**
+     * Returns up to limit customers with ids above afterCustomerId, in customer id order.
+     */
+    public List<Customer> findAfter(long afterCustomerId, int limit);
+
     public Customer findByCustomerId(long customerId);
 
 }
@@ -4,34 +4,50 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 import business.BookstoreDbException.BookstoreQueryDbException;
 import business.BookstoreDbException.BookstoreUpdateDbException;
 
 import static business.JdbcUtils.getConnection;
+import static business.JdbcUtils.prepareStreamingStatement;
 
 public class CustomerDaoJdbc implements CustomerDao {
 
     private static final String CREATE_CUSTOMER_SQL =
-            "INSERT INTO `customer` (name, address, phone, email, cc_number, cc_exp_date) " +
-                    "VALUES (?, ?, ?, ?, ?, ?)";
+            "INSERT INTO `customer` (customer_id, name, address, phone, email, cc_number, cc_exp_date, customer_key) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // MySQL leaves the row unwritten when the details are the ones it already holds
+    private static final String UPDATE_CUSTOMER_SQL =
+            "UPDATE `customer` SET name = ?, address = ?, phone = ?, email = ?, cc_number = ?, cc_exp_date = ? " +
+                    "WHERE customer_id = ? AND customer_key = ?";
+
+    private static final String FIND_ID_BY_CUSTOMER_KEY_SQL =
+            "SELECT customer_id FROM customer WHERE customer_key = ?";
 
     private static final String FIND_ALL_SQL =
             "SELECT customer_id, name, address, " +
                     "phone, email, cc_number, cc_exp_date " +
                     "FROM customer";
 
+    private static final String FIND_AFTER_SQL =
+            "SELECT customer_id, name, address, " +
+                    "phone, email, cc_number, cc_exp_date " +
+                    "FROM customer WHERE customer_id > ? ORDER BY customer_id LIMIT ?";
+
     private static final String FIND_BY_CUSTOMER_ID_SQL =
             "SELECT customer_id, name, address, " +
                     "phone, email, cc_number, cc_exp_date " +
                     "FROM customer WHERE customer_id = ?";
 
     @Override
-    public long create(Connection connection,
+    public void create(Connection connection,
+                       long customerId,
+                       String customerKey,
                        String name,
                        String address,
                        String phone,
@@ -39,36 +55,74 @@ public class CustomerDaoJdbc implements CustomerDao {
                        String ccNumber,
                        Date ccExpDate) {
         try (PreparedStatement statement =
-                     connection.prepareStatement(CREATE_CUSTOMER_SQL, Statement.RETURN_GENERATED_KEYS)) {
-            statement.setString(1, name);
-            statement.setString(2, address);
-            statement.setString(3, phone);
-            statement.setString(4, email);
-            statement.setString(5, ccNumber);
-            // Make sure we're using a sql.Date
-            if (ccExpDate instanceof java.sql.Date) {
-                statement.setDate(6, (java.sql.Date) ccExpDate);
-            } else {
-                statement.setDate(6, new java.sql.Date(ccExpDate.getTime()));
-            }
+                     connection.prepareStatement(CREATE_CUSTOMER_SQL)) {
+            statement.setLong(1, customerId);
+            setDetails(statement, 2, name, address, phone, email, ccNumber, ccExpDate);
+            statement.setString(8, customerKey);
 
             int affected = statement.executeUpdate();
             if (affected != 1) {
                 throw new BookstoreUpdateDbException("Failed to insert a customer, affected row count = " + affected);
             }
-            long customerId;
-            ResultSet rs = statement.getGeneratedKeys();
-            if (rs.next()) {
-                customerId = rs.getLong(1);
-            } else {
-                throw new BookstoreUpdateDbException("Failed to retrieve customerId auto-generated key");
-            }
-            return customerId;
         } catch (SQLException e) {
             throw new BookstoreUpdateDbException("Encountered problem creating a new customer ", e);
         }
     }
 
+    @Override
+    public void update(Connection connection,
+                       long customerId,
+                       String customerKey,
+                       String name,
+                       String address,
+                       String phone,
+                       String email,
+                       String ccNumber,
+                       Date ccExpDate) {
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_CUSTOMER_SQL)) {
+            setDetails(statement, 1, name, address, phone, email, ccNumber, ccExpDate);
+            statement.setLong(7, customerId);
+            statement.setString(8, customerKey);
+
+            // Counts the matched row whether or not it changed
+            int affected = statement.executeUpdate();
+            if (affected != 1) {
+                throw new BookstoreUpdateDbException("No customer " + customerId + " with key " + customerKey);
+            }
+        } catch (SQLException e) {
+            throw new BookstoreUpdateDbException("Encountered problem updating customer " + customerId, e);
+        }
+    }
+
+    private static void setDetails(PreparedStatement statement, int firstIndex,
+                                   String name, String address, String phone,
+                                   String email, String ccNumber, Date ccExpDate) throws SQLException {
+        statement.setString(firstIndex, name);
+        statement.setString(firstIndex + 1, address);
+        statement.setString(firstIndex + 2, phone);
+        statement.setString(firstIndex + 3, email);
+        statement.setString(firstIndex + 4, ccNumber);
+        // Make sure we're using a sql.Date
+        if (ccExpDate instanceof java.sql.Date) {
+            statement.setDate(firstIndex + 5, (java.sql.Date) ccExpDate);
+        } else {
+            statement.setDate(firstIndex + 5, new java.sql.Date(ccExpDate.getTime()));
+        }
+    }
+
+    @Override
+    public Long findIdByCustomerKey(String customerKey) {
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_ID_BY_CUSTOMER_KEY_SQL)) {
+            statement.setString(1, customerKey);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong("customer_id") : null;
+            }
+        } catch (SQLException e) {
+            throw new BookstoreQueryDbException("Encountered problem finding customer by key " + customerKey, e);
+        }
+    }
+
     @Override
     public List<Customer> findAll() {
         List<Customer> result = new ArrayList<>();
@@ -87,6 +141,37 @@ public class CustomerDaoJdbc implements CustomerDao {
 
     }
 
+    @Override
+    public void forEach(Consumer<Customer> action) {
+        try (Connection connection = getConnection();
+             PreparedStatement statement = prepareStreamingStatement(connection, FIND_ALL_SQL);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                action.accept(readCustomer(resultSet));
+            }
+        } catch (SQLException e) {
+            throw new BookstoreQueryDbException("Encountered problem streaming all customers", e);
+        }
+    }
+
+    @Override
+    public List<Customer> findAfter(long afterCustomerId, int limit) {
+        List<Customer> result = new ArrayList<>(limit);
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_AFTER_SQL)) {
+            statement.setLong(1, afterCustomerId);
+            statement.setInt(2, limit);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    result.add(readCustomer(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            throw new BookstoreQueryDbException("Encountered problem finding customers after id " + afterCustomerId, e);
+        }
+        return result;
+    }
+
     @Override
     public Customer findByCustomerId(long customerId) {
 
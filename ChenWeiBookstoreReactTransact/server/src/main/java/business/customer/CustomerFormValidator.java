@@ -0,0 +1,233 @@
+package business.customer;
+
+import api.ApiException.FieldError;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the customer part of an order form.
+ *
+ * Every field is checked by scanning its characters in place, so a valid form
+ * is checked without compiling patterns or building trimmed and sanitized copies
+ * of the input, and without allocating at all. All the fields are checked in one
+ * pass; each invalid field contributes the first problem found with it.
+ */
+public class CustomerFormValidator {
+
+	private static final int NAME_MIN_LENGTH = 4;
+	private static final int NAME_MAX_LENGTH = 45;
+	private static final int ADDRESS_MIN_LENGTH = 4;
+	private static final int ADDRESS_MAX_LENGTH = 45;
+	private static final int PHONE_DIGITS = 10;
+	private static final int CC_MIN_DIGITS = 14;
+	private static final int CC_MAX_DIGITS = 16;
+
+	// The current month as year * 12 + month - 1, and when it next changes
+	private volatile long currentMonthIndex;
+	private volatile long nextMonthStartMillis;
+
+	/**
+	 * Returns the problems with the form, or an empty list if it is valid.
+	 */
+	public List<FieldError> validate(CustomerForm customerForm) {
+		if (customerForm == null) {
+			return List.of(new FieldError("customerForm", "Customer information is missing."));
+		}
+		List<FieldError> errors = null;
+		errors = add(errors, checkLength(customerForm.getName(), "name", "Name", NAME_MIN_LENGTH, NAME_MAX_LENGTH));
+		errors = add(errors, checkLength(customerForm.getAddress(), "address", "Address", ADDRESS_MIN_LENGTH, ADDRESS_MAX_LENGTH));
+		errors = add(errors, checkPhone(customerForm.getPhone()));
+		errors = add(errors, checkEmail(customerForm.getEmail()));
+		errors = add(errors, checkCreditCardNumber(customerForm.getCcNumber()));
+		errors = checkExpiryDate(errors, customerForm.getCcExpiryMonth(), customerForm.getCcExpiryYear());
+		return errors == null ? List.of() : errors;
+	}
+
+	private static List<FieldError> add(List<FieldError> errors, FieldError error) {
+		if (error == null) {
+			return errors;
+		}
+		if (errors == null) {
+			errors = new ArrayList<>();
+		}
+		errors.add(error);
+		return errors;
+	}
+
+	private static FieldError checkLength(String value, String fieldName, String label, int minLength, int maxLength) {
+		if (value == null) {
+			return new FieldError(fieldName, label + " is missing.");
+		}
+		int length = trimmedLength(value);
+		if (length == 0) {
+			return new FieldError(fieldName, label + " is empty.");
+		}
+		if (length < minLength || length > maxLength) {
+			return new FieldError(fieldName, label + " must be between " + minLength + " and " + maxLength + " characters.");
+		}
+		return null;
+	}
+
+	private static FieldError checkPhone(String phone) {
+		if (phone == null) {
+			return new FieldError("phone", "Phone number is missing.");
+		}
+		int start = trimStart(phone);
+		int end = trimEnd(phone, start);
+		if (start == end) {
+			return new FieldError("phone", "Phone number is empty.");
+		}
+		int digits = countDigits(phone, start, end, true);
+		if (digits != PHONE_DIGITS) {
+			return new FieldError("phone", "Phone number must be exactly 10 digits.");
+		}
+		return null;
+	}
+
+	private static FieldError checkEmail(String email) {
+		if (email == null) {
+			return new FieldError("email", "Email is missing.");
+		}
+		int start = trimStart(email);
+		int end = trimEnd(email, start);
+		if (start == end) {
+			return new FieldError("email", "Email is empty.");
+		}
+		boolean hasAt = false;
+		for (int i = start; i < end; i++) {
+			char c = email.charAt(i);
+			if (c == ' ') {
+				return invalidEmail();
+			}
+			hasAt |= c == '@';
+		}
+		if (!hasAt || email.charAt(end - 1) == '.') {
+			return invalidEmail();
+		}
+		return null;
+	}
+
+	private static FieldError invalidEmail() {
+		return new FieldError("email", "Invalid email format.");
+	}
+
+	private static FieldError checkCreditCardNumber(String ccNumber) {
+		if (ccNumber == null) {
+			return new FieldError("ccNumber", "Credit card number is missing.");
+		}
+		int start = trimStart(ccNumber);
+		int end = trimEnd(ccNumber, start);
+		if (start == end) {
+			return new FieldError("ccNumber", "Credit card number is empty.");
+		}
+		int digits = countDigits(ccNumber, start, end, false);
+		if (digits < CC_MIN_DIGITS || digits > CC_MAX_DIGITS) {
+			return new FieldError("ccNumber", "Credit card number must be between 14 and 16 digits and contain only digits.");
+		}
+		return null;
+	}
+
+	private List<FieldError> checkExpiryDate(List<FieldError> errors, String ccExpiryMonth, String ccExpiryYear) {
+		boolean monthMissing = ccExpiryMonth == null || trimmedLength(ccExpiryMonth) == 0;
+		boolean yearMissing = ccExpiryYear == null || trimmedLength(ccExpiryYear) == 0;
+		if (monthMissing) {
+			errors = add(errors, new FieldError("ccExpiryMonth", "Expiry month is missing or empty."));
+		}
+		if (yearMissing) {
+			errors = add(errors, new FieldError("ccExpiryYear", "Expiry year is missing or empty."));
+		}
+		if (monthMissing || yearMissing) {
+			return errors;
+		}
+		int month = parseDigits(ccExpiryMonth);
+		int year = parseDigits(ccExpiryYear);
+		if (month < 0 || year < 0) {
+			return add(errors, new FieldError("ccExpiryDate", "Expiry date must contain valid numbers."));
+		}
+		if (month < 1 || month > 12) {
+			return add(errors, new FieldError("ccExpiryMonth", "Expiry month must be between 1 and 12."));
+		}
+		if (year * 12L + month - 1 < currentMonthIndex()) {
+			return add(errors, new FieldError("ccExpiryDate", "Expiry date cannot be in the past."));
+		}
+		return errors;
+	}
+
+	private long currentMonthIndex() {
+		long now = System.currentTimeMillis();
+		if (now >= nextMonthStartMillis) {
+			LocalDate today = LocalDate.now();
+			currentMonthIndex = today.getYear() * 12L + today.getMonthValue() - 1;
+			nextMonthStartMillis = today.withDayOfMonth(1).plusMonths(1)
+					.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		}
+		return currentMonthIndex;
+	}
+
+	/*
+	 * The number of ASCII digits in value[start, end), or -1 if it contains anything but
+	 * digits and separators. Whitespace and '-' are separators; so are '(' and ')'
+	 * when parentheses are allowed.
+	 */
+	private static int countDigits(String value, int start, int end, boolean allowParentheses) {
+		int digits = 0;
+		for (int i = start; i < end; i++) {
+			char c = value.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits++;
+			} else if (!(isRegexWhitespace(c) || c == '-' || (allowParentheses && (c == '(' || c == ')')))) {
+				return -1;
+			}
+		}
+		return digits;
+	}
+
+	/*
+	 * The value of a string made only of ASCII digits, or -1 if it has anything
+	 * else in it or does not fit in an int.
+	 */
+	private static int parseDigits(String value) {
+		long result = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			result = result * 10 + (c - '0');
+			if (result > Integer.MAX_VALUE) {
+				return -1;
+			}
+		}
+		return (int) result;
+	}
+
+	// Whitespace as matched by \s in a regular expression
+	private static boolean isRegexWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+	}
+
+	// Length after String.trim(), without creating the trimmed string
+	private static int trimmedLength(String value) {
+		int start = trimStart(value);
+		return trimEnd(value, start) - start;
+	}
+
+	private static int trimStart(String value) {
+		int start = 0;
+		while (start < value.length() && value.charAt(start) <= ' ') {
+			start++;
+		}
+		return start;
+	}
+
+	private static int trimEnd(String value, int start) {
+		int end = value.length();
+		while (end > start && value.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		return end;
+	}
+}
@@ -0,0 +1,27 @@
+package business.customer;
+
+import java.util.Locale;
+
+/**
+ * Tells customers apart across orders. A customer key is the customer's
+ * email, trimmed and lower-cased, and the digits of their phone number; the
+ * customer table holds one customer per key.
+ */
+public final class CustomerKeys {
+
+	private CustomerKeys() {
+	}
+
+	public static String customerKey(String email, String phone) {
+		StringBuilder key = new StringBuilder(email.length() + 11);
+		key.append(email.trim().toLowerCase(Locale.ROOT));
+		key.append('|');
+		for (int i = 0; i < phone.length(); i++) {
+			char c = phone.charAt(i);
+			if (c >= '0' && c <= '9') {
+				key.append(c);
+			}
+		}
+		return key.toString();
+	}
+}
@@ -0,0 +1,161 @@
+package business.customer;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the customers that were added once per order before customers were
+ * keyed, and sets up the customer_key column and its unique index on a
+ * database that doesn't have them yet.
+ *
+ * Customers with the same customer key (see CustomerKeys) are merged into
+ * one: the one that already has its key set, otherwise the most recent one.
+ * Orders of the others are moved to it and the others are deleted.
+ *
+ * Run it with the servers stopped, since their order details caches may still
+ * hold customers it deletes:
+ *
+ *     java -cp ... business.customer.CustomerMergeJob jdbc:mysql://host/ChenWeiBookstore user password
+ */
+public class CustomerMergeJob {
+
+    private static final int GROUPS_PER_TRANSACTION = 500;
+
+    private static final String FIND_ALL_SQL =
+            "SELECT customer_id, email, phone, customer_key FROM customer ORDER BY customer_id";
+
+    private static final String MOVE_ORDERS_SQL =
+            "UPDATE customer_order SET customer_id = ? WHERE customer_id = ?";
+
+    private static final String DELETE_CUSTOMER_SQL =
+            "DELETE FROM customer WHERE customer_id = ?";
+
+    private static final String SET_CUSTOMER_KEY_SQL =
+            "UPDATE customer SET customer_key = ? WHERE customer_id = ?";
+
+    private record KeyedCustomer(long customerId, boolean keySet) {}
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length != 3) {
+            System.err.println("Usage: CustomerMergeJob <jdbc-url> <user> <password>");
+            System.exit(2);
+        }
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2])) {
+            int merged = run(connection);
+            System.out.println("Merged " + merged + " duplicate customers");
+        }
+    }
+
+    /**
+     * Merges the duplicates and returns how many customers were deleted.
+     */
+    public static int run(Connection connection) throws SQLException {
+        addCustomerKeyColumnIfMissing(connection);
+
+        Map<String, List<KeyedCustomer>> customersByKey = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(FIND_ALL_SQL)) {
+            while (resultSet.next()) {
+                String customerKey = CustomerKeys.customerKey(
+                        resultSet.getString("email"), resultSet.getString("phone"));
+                customersByKey.computeIfAbsent(customerKey, key -> new ArrayList<>())
+                        .add(new KeyedCustomer(resultSet.getLong("customer_id"),
+                                resultSet.getString("customer_key") != null));
+            }
+        }
+
+        int merged = 0;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement moveOrders = connection.prepareStatement(MOVE_ORDERS_SQL);
+             PreparedStatement deleteCustomer = connection.prepareStatement(DELETE_CUSTOMER_SQL);
+             PreparedStatement setCustomerKey = connection.prepareStatement(SET_CUSTOMER_KEY_SQL)) {
+            int groups = 0;
+            for (Map.Entry<String, List<KeyedCustomer>> entry : customersByKey.entrySet()) {
+                List<KeyedCustomer> customers = entry.getValue();
+                KeyedCustomer survivor = survivor(customers);
+                for (KeyedCustomer customer : customers) {
+                    if (customer == survivor) {
+                        continue;
+                    }
+                    moveOrders.setLong(1, survivor.customerId());
+                    moveOrders.setLong(2, customer.customerId());
+                    moveOrders.addBatch();
+                    deleteCustomer.setLong(1, customer.customerId());
+                    deleteCustomer.addBatch();
+                    merged++;
+                }
+                if (!survivor.keySet()) {
+                    setCustomerKey.setString(1, entry.getKey());
+                    setCustomerKey.setLong(2, survivor.customerId());
+                    setCustomerKey.addBatch();
+                }
+                if (++groups % GROUPS_PER_TRANSACTION == 0) {
+                    flush(connection, moveOrders, deleteCustomer, setCustomerKey);
+                }
+            }
+            flush(connection, moveOrders, deleteCustomer, setCustomerKey);
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        addCustomerKeyIndexIfMissing(connection);
+        return merged;
+    }
+
+    private static KeyedCustomer survivor(List<KeyedCustomer> customers) {
+        for (KeyedCustomer customer : customers) {
+            if (customer.keySet()) {
+                return customer;
+            }
+        }
+        return customers.get(customers.size() - 1);
+    }
+
+    // Orders are moved before their customers are deleted, and keys are set after
+    private static void flush(Connection connection, PreparedStatement moveOrders,
+                              PreparedStatement deleteCustomer, PreparedStatement setCustomerKey) throws SQLException {
+        moveOrders.executeBatch();
+        deleteCustomer.executeBatch();
+        setCustomerKey.executeBatch();
+        connection.commit();
+    }
+
+    private static void addCustomerKeyColumnIfMissing(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, "customer", "customer_key")) {
+            if (columns.next()) {
+                return;
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE customer ADD COLUMN customer_key VARCHAR(100)");
+        }
+    }
+
+    private static void addCustomerKeyIndexIfMissing(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, "customer", true, false)) {
+            while (indexes.next()) {
+                if ("customer_key".equalsIgnoreCase(indexes.getString("COLUMN_NAME"))) {
+                    return;
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE UNIQUE INDEX customer_key ON customer (customer_key)");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package business.order;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An OrderDetailsDao that keeps the most recently used order details in
+ * memory in front of another OrderDetailsDao.
+ *
+ * Orders don't change once placed; each keeps a copy of the customer details
+ * it was placed with. The order service puts the details of each order it
+ * places, built from what it just wrote, so reading an order back right after
+ * placing it costs no query. Other orders are read through from the delegate.
+ * The cache holds at most maxSize orders and forgets the least recently used
+ * one first.
+ */
+public class CachingOrderDetailsDao implements OrderDetailsDao {
+
+    private final OrderDetailsDao delegate;
+    private final Map<Long, OrderDetails> detailsByOrderId;
+
+    public CachingOrderDetailsDao(OrderDetailsDao delegate, int maxSize) {
+        this.delegate = delegate;
+        this.detailsByOrderId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, OrderDetails> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached details, or reads them from the delegate and caches
+     * them. An order that doesn't exist is not remembered, as it may yet be
+     * committed.
+     */
+    @Override
+    public OrderDetails findByOrderId(long orderId) {
+        OrderDetails orderDetails;
+        synchronized (this) {
+            orderDetails = detailsByOrderId.get(orderId);
+        }
+        if (orderDetails == null) {
+            orderDetails = delegate.findByOrderId(orderId);
+            if (orderDetails != null) {
+                put(orderDetails);
+            }
+        }
+        return orderDetails;
+    }
+
+    /**
+     * Caches the details of an order whose rows are committed.
+     */
+    public synchronized void put(OrderDetails orderDetails) {
+        detailsByOrderId.put(orderDetails.order().orderId(), orderDetails);
+    }
+
+    public synchronized void invalidateAll() {
+        detailsByOrderId.clear();
+    }
+
+    public synchronized int size() {
+        return detailsByOrderId.size();
+    }
+}
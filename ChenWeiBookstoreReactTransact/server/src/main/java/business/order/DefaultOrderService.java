@@ -2,40 +2,67 @@ package business.order;
 
 import api.ApiException;
 import business.book.Book;
-
 import business.book.BookDao;
+import business.book.StockDao;
+import business.book.StockLedger;
 import business.cart.ShoppingCart;
 import business.cart.ShoppingCartItem;
 import business.customer.CustomerDao;
 import business.customer.CustomerForm;
+import business.customer.CustomerFormValidator;
+import business.customer.CustomerKeys;
 import business.customer.Customer;
-import java.util.List;
-
-import java.time.YearMonth;
-import java.util.regex.Pattern;
-import java.util.Date;
-import java.util.Calendar;
+import business.IdAllocator;
+import business.JdbcUtils;
+import business.BookstoreDbException;
+import business.UnitOfWork;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import business.ApplicationContext;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
-import java.util.concurrent.ThreadLocalRandom;
 
-import java.time.YearMonth;
+public class DefaultOrderService implements OrderService {
 
-import java.util.List;
+	private static final Logger LOG = Logger.getLogger(DefaultOrderService.class.getName());
 
-import business.JdbcUtils;
-import business.BookstoreDbException;
+	// Confirmation numbers are order ids scrambled by this bijection on 0..999,999,999
+	private static final long CONFIRMATION_NUMBER_MODULUS = 1_000_000_000L;
+	private static final long CONFIRMATION_NUMBER_MULTIPLIER = 387_420_489L; // 3^18, coprime to the modulus
+	private static final long CONFIRMATION_NUMBER_OFFSET = 275_604_541L;
 
-
-public class DefaultOrderService implements OrderService {
+	// Orders of one customer key are placed one at a time, from looking the customer up
+	// to committing, so a new customer's first orders can't both insert them. At most
+	// bookstore.orders.concurrency orders (4) are placed at once, so with 1024 stripes two
+	// of them for different customers share a lock well under one time in a hundred.
+	private static final int CUSTOMER_LOCK_STRIPES =
+			Integer.getInteger("bookstore.orders.customerLockStripes", 1024);
 
 	private BookDao bookDao;
 	private CustomerDao customerDao;
 	private OrderDao orderDao;
 	private LineItemDao lineItemDao;
+	private OrderDetailsDao orderDetailsDao;
+	private CachingOrderDetailsDao orderDetailsCache;
+	private StockLedger stockLedger;
+	private StockDao stockDao;
+	private IdempotencyKeyDao idempotencyKeyDao;
+	private GroupCommitOrderWriter orderWriter;
+	private IdAllocator customerIdAllocator;
+	private IdAllocator orderIdAllocator;
+	private final ReentrantLock[] customerLocks = newLocks(CUSTOMER_LOCK_STRIPES);
+	private final CustomerFormValidator customerFormValidator = new CustomerFormValidator();
 
 	public void setBookDao(BookDao bookDao) {
 		this.bookDao = bookDao;
@@ -51,91 +78,220 @@ public class DefaultOrderService implements OrderService {
 	public void setLineItemDao(LineItemDao lineItemDao) {
 		this.lineItemDao = lineItemDao;
 	}
+
+	public void setOrderDetailsDao(OrderDetailsDao orderDetailsDao) {
+		this.orderDetailsDao = orderDetailsDao;
+	}
+
+	/**
+	 * Keeps the details of each placed order, built from what was written,
+	 * so reading them back after placement costs no query.
+	 */
+	public void setOrderDetailsCache(CachingOrderDetailsDao orderDetailsCache) {
+		this.orderDetailsCache = orderDetailsCache;
+	}
+
+	/**
+	 * Turns on stock tracking in memory: carts are checked against the
+	 * ledger, and their copies reserved, before any transaction opens. See
+	 * StockLedger for its limits.
+	 */
+	public void setStockLedger(StockLedger stockLedger) {
+		this.stockLedger = stockLedger;
+	}
+
+	/**
+	 * Turns on stock tracking in the database, when there is no ledger: each
+	 * order takes its copies off the book table in its own transaction.
+	 */
+	public void setStockDao(StockDao stockDao) {
+		this.stockDao = stockDao;
+	}
+
+	public void setIdempotencyKeyDao(IdempotencyKeyDao idempotencyKeyDao) {
+		this.idempotencyKeyDao = idempotencyKeyDao;
+	}
+
+	public void setCustomerIdAllocator(IdAllocator customerIdAllocator) {
+		this.customerIdAllocator = customerIdAllocator;
+	}
+
+	public void setOrderIdAllocator(IdAllocator orderIdAllocator) {
+		this.orderIdAllocator = orderIdAllocator;
+	}
+
+	/**
+	 * Turns on group commit: orders are written in shared transactions by the
+	 * given writer instead of one transaction per order.
+	 */
+	public void setOrderWriter(GroupCommitOrderWriter orderWriter) {
+		this.orderWriter = orderWriter;
+	}
 	@Override
 	public OrderDetails getOrderDetails(long orderId) {
-		Order order = orderDao.findByOrderId(orderId);
-		Customer customer = customerDao.findByCustomerId(order.customerId());
-		List<LineItem> lineItems = lineItemDao.findByOrderId(orderId);
-		List<Book> books = lineItems
-				.stream()
-				.map(lineItem -> bookDao.findByBookId(lineItem.bookId()))
-				.toList();
-		return new OrderDetails(order, customer, lineItems, books);
+		return orderDetailsDao.findByOrderId(orderId);
 	}
+
 	@Override
-	public long placeOrder(CustomerForm customerForm, ShoppingCart cart) {
+	public long placeOrder(CustomerForm customerForm, ShoppingCart cart, String idempotencyKey, String givenRequestHash) {
+		System.out.println("Starting order placement");
+		validateCustomer(customerForm);
+		Map<Long, Book> books = validateCart(cart);
+		String requestHash = idempotencyKey == null || givenRequestHash != null
+				? givenRequestHash : OrderRequests.requestHash(customerForm, cart);
+		if (idempotencyKey != null) {
+			Long placedOrderId = findPlacedOrderId(idempotencyKey, requestHash);
+			if (placedOrderId != null) {
+				LOG.fine(() -> "Order " + placedOrderId + " already placed for its idempotency key");
+				return placedOrderId;
+			}
+		}
+
+		// Reserved copies go back unless the order is committed
+		boolean stockReserved = false;
 		try {
-			System.out.println("Starting order placement");
-			validateCustomer(customerForm);
-			validateCart(cart);
+			reserveStock(cart);
+			stockReserved = stockLedger != null;
 
-			try (Connection connection = JdbcUtils.getConnection()) {
-				Date ccExpDate = getCardExpirationDate(
-						customerForm.getCcExpiryMonth(),
-						customerForm.getCcExpiryYear());
+			Date ccExpDate = getCardExpirationDate(
+					customerForm.getCcExpiryMonth(),
+					customerForm.getCcExpiryYear());
 
-				long orderId = performPlaceOrderTransaction(
+			String customerKey = CustomerKeys.customerKey(customerForm.getEmail(), customerForm.getPhone());
+
+			// Taken before any transaction starts, since reserving a new block commits
+			long orderId = orderIdAllocator.nextId();
+			// date_created is stored to the second, so the cached order holds what the row does
+			Date dateCreated = new Timestamp(System.currentTimeMillis() / 1000 * 1000);
+
+			ReentrantLock customerLock = customerLocks[Math.floorMod(customerKey.hashCode(), CUSTOMER_LOCK_STRIPES)];
+			customerLock.lock();
+			try {
+				// Looked up under the lock, so no other order of this customer key is placed
+				// in between; only a new customer takes an id, before the transaction starts
+				Long returningCustomerId = customerDao.findIdByCustomerKey(customerKey);
+				boolean returningCustomer = returningCustomerId != null;
+				Customer customer = new Customer(
+						returningCustomer ? returningCustomerId : customerIdAllocator.nextId(),
 						customerForm.getName(),
 						customerForm.getAddress(),
 						customerForm.getPhone(),
 						customerForm.getEmail(),
 						customerForm.getCcNumber(),
-						ccExpDate, cart, connection);
-
-				System.out.println("Order ID returned: " + orderId);
-				return orderId;
-			} catch (SQLException e) {
-				System.out.println("SQL Exception: " + e.getMessage());
-				e.printStackTrace();
-				throw new BookstoreDbException("Error during close connection for customer order", e);
+						ccExpDate);
+
+				if (orderWriter != null) {
+					// Don't hold a pooled connection while the writer thread needs one
+					UnitOfWork.releaseConnection();
+					orderWriter.write(connection -> {
+						insertOrder(customer, returningCustomer, customerKey, orderId, dateCreated,
+								idempotencyKey, requestHash, cart, connection);
+						return orderId;
+					});
+					stockReserved = false;
+					cacheOrderDetails(orderId, dateCreated, customer, cart, books);
+					System.out.println("Order ID returned: " + orderId);
+					return orderId;
+				}
+
+				try (Connection connection = JdbcUtils.getConnection()) {
+					performPlaceOrderTransaction(customer, returningCustomer, customerKey, orderId, dateCreated,
+							idempotencyKey, requestHash, cart, connection);
+					stockReserved = false;
+					cacheOrderDetails(orderId, dateCreated, customer, cart, books);
+
+					System.out.println("Order ID returned: " + orderId);
+					return orderId;
+				} catch (SQLException e) {
+					System.out.println("SQL Exception: " + e.getMessage());
+					e.printStackTrace();
+					throw new BookstoreDbException("Error during close connection for customer order", e);
+				}
+			} finally {
+				customerLock.unlock();
 			}
 		} catch (Exception e) {
 			System.out.println("General Exception: " + e.getMessage());
 			e.printStackTrace();
+			if (stockReserved) {
+				stockLedger.release(stockQuantities(cart));
+			}
+			// A concurrent request with the same key may have committed first
+			if (idempotencyKey != null) {
+				Long placedOrderId;
+				try {
+					placedOrderId = findPlacedOrderId(idempotencyKey, requestHash);
+				} catch (ApiException.IdempotencyKeyReused reused) {
+					throw reused;
+				} catch (RuntimeException lookupFailure) {
+					e.addSuppressed(lookupFailure);
+					throw e;
+				}
+				if (placedOrderId != null) {
+					LOG.fine(() -> "Order " + placedOrderId + " already placed for its idempotency key");
+					return placedOrderId;
+				}
+			}
 			throw e;
 		}
 	}
+	/*
+	 * Returns the id of the order already placed for the key, if any, provided
+	 * it was placed for the same request.
+	 */
+	private Long findPlacedOrderId(String idempotencyKey, String requestHash) {
+		IdempotencyKeyDao.KeyedOrder keyedOrder = idempotencyKeyDao.findByKey(idempotencyKey);
+		if (keyedOrder == null) {
+			return null;
+		}
+		if (!keyedOrder.requestHash().equals(requestHash)) {
+			throw new ApiException.IdempotencyKeyReused("Idempotency-Key was already used for a different order.");
+		}
+		return keyedOrder.orderId();
+	}
+
 	private Date getCardExpirationDate(String monthString, String yearString) {
 		int month = Integer.parseInt(monthString);
 		int year = Integer.parseInt(yearString);
 
-		Calendar cal = Calendar.getInstance();
-		cal.set(Calendar.YEAR, year);
-		cal.set(Calendar.MONTH, month - 1);  // Calendar months are 0-based
-		cal.set(Calendar.DAY_OF_MONTH, 1);
+		// Midnight of the first of the month, as the cc_exp_date column reads back
+		return java.sql.Date.valueOf(LocalDate.of(year, month, 1));
+	}
 
-		// Convert util.Date to sql.Date
-		return new java.sql.Date(cal.getTimeInMillis());
+	/*
+	 * Builds the details of a committed order from what was written, with its
+	 * line items in book id order as OrderDetailsDao reads them.
+	 */
+	private void cacheOrderDetails(long orderId, Date dateCreated, Customer customer,
+								   ShoppingCart cart, Map<Long, Book> books) {
+		if (orderDetailsCache == null) {
+			return;
+		}
+		List<ShoppingCartItem> items = new ArrayList<>(cart.getItems());
+		items.sort(Comparator.comparingLong(item -> item.getBookForm().getBookId()));
+		List<LineItem> lineItems = new ArrayList<>(items.size());
+		List<Book> orderedBooks = new ArrayList<>(items.size());
+		for (ShoppingCartItem item : items) {
+			long bookId = item.getBookForm().getBookId();
+			lineItems.add(new LineItem(bookId, orderId, item.getQuantity()));
+			orderedBooks.add(books.get(bookId));
+		}
+		Order order = new Order(orderId, cart.getComputedSubtotal() + cart.getSurcharge(), dateCreated,
+				confirmationNumber(orderId), customer.customerId());
+		orderDetailsCache.put(new OrderDetails(order, customer, lineItems, orderedBooks));
 	}
 
-	private long performPlaceOrderTransaction(
-			String name, String address, String phone,
-			String email, String ccNumber, Date date,
+	private void performPlaceOrderTransaction(
+			Customer customer, boolean returningCustomer, String customerKey, long customerOrderId,
+			Date dateCreated, String idempotencyKey, String requestHash,
 			ShoppingCart cart, Connection connection) {
 		try {
 			connection.setAutoCommit(false);
-			System.out.println("Creating customer...");
-			long customerId = customerDao.create(
-					connection, name, address, phone, email,
-					ccNumber, date);
-			System.out.println("Customer created with ID: " + customerId);
-
-			System.out.println("Creating order...");
-			long customerOrderId = orderDao.create(
-					connection,
-					cart.getComputedSubtotal() + cart.getSurcharge(),
-					generateConfirmationNumber(), customerId);
-			System.out.println("Order created with ID: " + customerOrderId);
-
-			System.out.println("Creating line items...");
-			for (ShoppingCartItem item : cart.getItems()) {
-				lineItemDao.create(connection, item.getBookId(), customerOrderId, item.getQuantity());
-			}
-			System.out.println("Line items created");
+			insertOrder(customer, returningCustomer, customerKey, customerOrderId, dateCreated,
+					idempotencyKey, requestHash, cart, connection);
 
 			connection.commit();
 			System.out.println("Transaction committed");
-			return customerOrderId;
 		} catch (Exception e) {
 			System.out.println("Transaction failed: " + e.getMessage());
 			e.printStackTrace();
@@ -146,32 +302,88 @@ public class DefaultOrderService implements OrderService {
 				System.out.println("Rollback failed: " + e1.getMessage());
 				throw new BookstoreDbException("Failed to roll back transaction", e1);
 			}
+			// Such as too few copies left in stock
+			if (e instanceof ApiException apiException) {
+				throw apiException;
+			}
 			throw new BookstoreDbException("Failed to place order", e);
+		} finally {
+			// Closing the request's shared connection leaves its auto-commit as it is
+			try {
+				connection.setAutoCommit(true);
+			} catch (SQLException e) {
+				LOG.log(Level.WARNING, "Restoring auto-commit failed", e);
+			}
 		}
 	}
 
-	private int generateConfirmationNumber() {
-		return ThreadLocalRandom.current().nextInt(999999999);
-	}
-	private void validateCustomer(CustomerForm customerForm) {
-		if (customerForm == null) {
-			throw new ApiException.ValidationFailure("customerForm", "Customer information is missing.");
+	/*
+	 * Inserts a new customer, or gives a returning one the details they
+	 * ordered with, and writes the order, which keeps a copy of those details.
+	 */
+	private void insertOrder(
+			Customer customer, boolean returningCustomer, String customerKey, long customerOrderId,
+			Date dateCreated, String idempotencyKey, String requestHash,
+			ShoppingCart cart, Connection connection) {
+		if (returningCustomer) {
+			customerDao.update(connection, customer.customerId(), customerKey, customer.customerName(),
+					customer.address(), customer.phone(), customer.email(), customer.ccNumber(), customer.ccExpDate());
+		} else {
+			customerDao.create(connection, customer.customerId(), customerKey, customer.customerName(),
+					customer.address(), customer.phone(), customer.email(), customer.ccNumber(), customer.ccExpDate());
+		}
+		System.out.println("Creating order...");
+		orderDao.create(
+				connection, customerOrderId,
+				cart.getComputedSubtotal() + cart.getSurcharge(), dateCreated,
+				confirmationNumber(customerOrderId), customer);
+		System.out.println("Order created with ID: " + customerOrderId);
+
+		System.out.println("Creating line items...");
+		lineItemDao.createAll(connection, customerOrderId, cart.getItems());
+		System.out.println("Line items created");
+
+		// Last, so the hot book rows stay locked for as short a time as possible
+		if (stockLedger == null && stockDao != null) {
+			OptionalLong outOfStock = stockDao.take(connection, stockQuantities(cart));
+			if (outOfStock.isPresent()) {
+				throw outOfStock(outOfStock.getAsLong());
+			}
 		}
 
-		validateField(customerForm.getName(), "name", 4, 45);
-
-		validateField(customerForm.getAddress(), "address", 4, 45);
-
-		validatePhone(customerForm.getPhone());
-
-		validateEmail(customerForm.getEmail());
+		if (idempotencyKey != null) {
+			idempotencyKeyDao.create(connection, idempotencyKey, requestHash, customerOrderId);
+		}
+	}
 
-		validateCreditCardNumber(customerForm.getCcNumber());
+	private static ReentrantLock[] newLocks(int count) {
+		ReentrantLock[] locks = new ReentrantLock[count];
+		for (int i = 0; i < count; i++) {
+			locks[i] = new ReentrantLock();
+		}
+		return locks;
+	}
 
-		validateExpiryDate(customerForm.getCcExpiryMonth(), customerForm.getCcExpiryYear());
+	/**
+	 * The confirmation number for an order: unique for every order id below
+	 * one billion, but not guessable from the previous one at a glance.
+	 */
+	static int confirmationNumber(long orderId) {
+		return (int) Math.floorMod(orderId * CONFIRMATION_NUMBER_MULTIPLIER + CONFIRMATION_NUMBER_OFFSET,
+				CONFIRMATION_NUMBER_MODULUS);
+	}
+	void validateCustomer(CustomerForm customerForm) {
+		List<ApiException.FieldError> errors = customerFormValidator.validate(customerForm);
+		if (!errors.isEmpty()) {
+			throw new ApiException.ValidationFailure(errors);
+		}
 	}
 
-	private void validateCart(ShoppingCart cart) {
+	/*
+	 * Checks the cart against the catalog and returns the books it holds, by
+	 * book id.
+	 */
+	private Map<Long, Book> validateCart(ShoppingCart cart) {
 		if (cart == null || cart.getItems() == null || cart.getItems().isEmpty()) {
 			throw new ApiException.ValidationFailure("cart", "Cart must contain at least one item.");
 		}
@@ -180,8 +392,13 @@ public class DefaultOrderService implements OrderService {
 			if (item.getQuantity() <= 0 || item.getQuantity() > 99) {
 				throw new ApiException.ValidationFailure("quantity", "Quantity must be between 1 and 99 for book ID: " + item.getBookForm().getBookId());
 			}
+		}
+
+		Map<Long, Book> databaseBooks = bookDao.findByBookIds(
+				cart.getItems().stream().map(item -> item.getBookForm().getBookId()).toList());
 
-			Book databaseBook = bookDao.findByBookId(item.getBookForm().getBookId());
+		for (ShoppingCartItem item : cart.getItems()) {
+			Book databaseBook = databaseBooks.get(item.getBookForm().getBookId());
 			if (databaseBook == null) {
 				throw new ApiException.ValidationFailure("bookId", "Book with ID " + item.getBookForm().getBookId() + " does not exist.");
 			}
@@ -194,97 +411,30 @@ public class DefaultOrderService implements OrderService {
 				throw new ApiException.ValidationFailure("category", "Category mismatch for book ID: " + item.getBookForm().getBookId());
 			}
 		}
-	}
 
-	private void validateField(String field, String fieldName, int minLength, int maxLength) {
-		if (field == null) {
-			throw new ApiException.ValidationFailure(fieldName, capitalize(fieldName) + " is missing.");
-		}
-		String trimmedField = field.trim();
-		if (trimmedField.isEmpty()) {
-			throw new ApiException.ValidationFailure(fieldName, capitalize(fieldName) + " is empty.");
-		}
-		if (trimmedField.length() < minLength || trimmedField.length() > maxLength) {
-			throw new ApiException.ValidationFailure(fieldName, capitalize(fieldName) + " must be between " + minLength + " and " + maxLength + " characters.");
-		}
+		return databaseBooks;
 	}
 
-	private void validatePhone(String phone) {
-		if (phone == null) {
-			throw new ApiException.ValidationFailure("phone", "Phone number is missing.");
-		}
-		String trimmedPhone = phone.trim();
-		if (trimmedPhone.isEmpty()) {
-			throw new ApiException.ValidationFailure("phone", "Phone number is empty.");
-		}
-		String sanitizedPhone = trimmedPhone.replaceAll("[\\s\\-()]", "");
-		if (!sanitizedPhone.matches("\\d{10}")) {
-			throw new ApiException.ValidationFailure("phone", "Phone number must be exactly 10 digits.");
-		}
-	}
-
-	// 验证电子邮件
-	private void validateEmail(String email) {
-		if (email == null) {
-			throw new ApiException.ValidationFailure("email", "Email is missing.");
-		}
-		String trimmedEmail = email.trim();
-		if (trimmedEmail.isEmpty()) {
-			throw new ApiException.ValidationFailure("email", "Email is empty.");
-		}
-		if (trimmedEmail.contains(" ") || !trimmedEmail.contains("@") || trimmedEmail.endsWith(".")) {
-			throw new ApiException.ValidationFailure("email", "Invalid email format.");
+	// With stock tracked, the cart's copies are reserved once nothing else can reject it
+	private void reserveStock(ShoppingCart cart) {
+		if (stockLedger != null) {
+			OptionalLong outOfStock = stockLedger.reserve(stockQuantities(cart));
+			if (outOfStock.isPresent()) {
+				throw outOfStock(outOfStock.getAsLong());
+			}
 		}
 	}
 
-	private void validateCreditCardNumber(String ccNumber) {
-		if (ccNumber == null) {
-			throw new ApiException.ValidationFailure("ccNumber", "Credit card number is missing.");
-		}
-		String trimmedCcNumber = ccNumber.trim();
-		if (trimmedCcNumber.isEmpty()) {
-			throw new ApiException.ValidationFailure("ccNumber", "Credit card number is empty.");
-		}
-		String sanitizedCcNumber = trimmedCcNumber.replaceAll("[\\s\\-]", "");
-		if (!sanitizedCcNumber.matches("\\d{14,16}")) {
-			throw new ApiException.ValidationFailure("ccNumber", "Credit card number must be between 14 and 16 digits and contain only digits.");
-		}
+	private static ApiException.ValidationFailure outOfStock(long bookId) {
+		return new ApiException.ValidationFailure("stock", "Not enough copies in stock for book ID: " + bookId);
 	}
 
-	private void validateExpiryDate(String ccExpiryMonth, String ccExpiryYear) {
-		if (ccExpiryMonth == null || ccExpiryMonth.trim().isEmpty()) {
-			throw new ApiException.ValidationFailure("ccExpiryMonth", "Expiry month is missing or empty.");
-		}
-		if (ccExpiryYear == null || ccExpiryYear.trim().isEmpty()) {
-			throw new ApiException.ValidationFailure("ccExpiryYear", "Expiry year is missing or empty.");
-		}
-		try {
-			if (!ccExpiryMonth.matches("\\d+") || !ccExpiryYear.matches("\\d+")) {
-				throw new ApiException.ValidationFailure("ccExpiryDate", "Expiry date must contain valid numbers.");
-			}
-
-			int month = Integer.parseInt(ccExpiryMonth);
-			int year = Integer.parseInt(ccExpiryYear);
-
-			if (month < 1 || month > 12) {
-				throw new ApiException.ValidationFailure("ccExpiryMonth", "Expiry month must be between 1 and 12.");
-			}
-
-			YearMonth expiryDate = YearMonth.of(year, month);
-			YearMonth currentDate = YearMonth.now();
-
-			if (expiryDate.isBefore(currentDate)) {
-				throw new ApiException.ValidationFailure("ccExpiryDate", "Expiry date cannot be in the past.");
-			}
-
-		} catch (NumberFormatException e) {
-			throw new ApiException.ValidationFailure("ccExpiryDate", "Expiry date must contain valid numbers.");
+	private static Map<Long, Integer> stockQuantities(ShoppingCart cart) {
+		Map<Long, Integer> quantities = new HashMap<>();
+		for (ShoppingCartItem item : cart.getItems()) {
+			quantities.merge(item.getBookForm().getBookId(), item.getQuantity(), Integer::sum);
 		}
-	}
-
-	private String capitalize(String str) {
-		if (str == null || str.isEmpty()) return str;
-		return str.substring(0, 1).toUpperCase() + str.substring(1);
+		return quantities;
 	}
 
 }
\ No newline at end of file
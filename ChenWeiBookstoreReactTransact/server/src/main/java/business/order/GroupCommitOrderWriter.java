@@ -0,0 +1,196 @@
+package business.order;
+
+import api.ApiException;
+import business.BookstoreDbException;
+import business.JdbcUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes the orders of concurrent callers in shared transactions, so one commit
+ * (and one log flush) covers a whole batch of orders.
+ *
+ * A single writer thread takes the first waiting order, gathers more for up to
+ * maxWaitMillis or until batchSize orders are collected, and runs them all on
+ * one connection. Each order runs behind its own savepoint: an order that fails
+ * is rolled back on its own and only its caller sees the failure, once the rest
+ * of the batch is committed. If the commit itself fails, every caller in the
+ * batch sees that failure.
+ *
+ * write() blocks its caller until the batch is committed, so a batch never
+ * holds more orders than there are threads calling write() at once. In the
+ * application those are the order workers, four by default, and batchSize is
+ * sized to their number: a larger one only makes the writer wait out
+ * maxWaitMillis for orders that can't arrive.
+ *
+ * At most queueDepth orders wait for the writer; beyond that, and for orders
+ * the writer hasn't taken within timeoutMillis, callers get
+ * ApiException.ServiceUnavailable, knowing the order was not placed. An order
+ * the writer has taken is waited for up to timeoutMillis more. close() stops
+ * the writer after its current batch and turns the orders still waiting away.
+ */
+public class GroupCommitOrderWriter {
+
+    /**
+     * Inserts one order on the given connection, without committing, and returns its id.
+     */
+    @FunctionalInterface
+    public interface OrderInsert {
+        long insert(Connection connection);
+    }
+
+    // Whoever claims an order first, the writer or its timed-out caller, decides whether it is written
+    private record PendingOrder(OrderInsert insert, CompletableFuture<Long> result, AtomicBoolean claimed) {}
+
+    private final int batchSize;
+    private final long maxWaitNanos;
+    private final long timeoutMillis;
+    private final BlockingQueue<PendingOrder> queue;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public GroupCommitOrderWriter(int batchSize, long maxWaitMillis, int queueDepth, long timeoutMillis) {
+        this.batchSize = batchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.timeoutMillis = timeoutMillis;
+        this.queue = new LinkedBlockingQueue<>(queueDepth);
+        this.writer = new Thread(this::run, "group-commit-order-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues an order for the next batch and waits until that batch is committed.
+     */
+    public long write(OrderInsert insert) {
+        PendingOrder order = new PendingOrder(insert, new CompletableFuture<>(), new AtomicBoolean());
+        if (closed || !queue.offer(order)) {
+            throw notPlaced();
+        }
+        try {
+            try {
+                return order.result().get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (order.claimed().compareAndSet(false, true)) {
+                    queue.remove(order);
+                    throw notPlaced();
+                }
+                return order.result().get(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (TimeoutException e) {
+            throw new BookstoreDbException("Timed out waiting for an order batch to commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BookstoreDbException("Failed to place order", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookstoreDbException("Interrupted waiting for order to be committed", e);
+        }
+    }
+
+    /**
+     * Stops the writer once its current batch is written, waiting up to
+     * timeoutMillis for that, and turns away the orders still waiting.
+     */
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (PendingOrder order = queue.poll(); order != null; order = queue.poll()) {
+            order.result().completeExceptionally(notPlaced());
+        }
+    }
+
+    private static ApiException.ServiceUnavailable notPlaced() {
+        return new ApiException.ServiceUnavailable("Too many orders are waiting to be written; the order was not placed");
+    }
+
+    private void run() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        while (!closed) {
+            try {
+                takeUnclaimed(batch, queue.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < batchSize) {
+                    PendingOrder next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    takeUnclaimed(batch, next);
+                }
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                // Only close() interrupts the writer, and orders gathered so far are not written
+                batch.forEach(order -> order.result().completeExceptionally(notPlaced()));
+                return;
+            } catch (RuntimeException e) {
+                batch.forEach(order -> order.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Orders their callers have given up on are left out
+    private static void takeUnclaimed(List<PendingOrder> batch, PendingOrder order) {
+        if (order.claimed().compareAndSet(false, true)) {
+            batch.add(order);
+        }
+    }
+
+    private void writeBatch(List<PendingOrder> batch) {
+        List<PendingOrder> written = new ArrayList<>(batch.size());
+        List<Long> orderIds = new ArrayList<>(batch.size());
+        List<PendingOrder> failed = new ArrayList<>();
+        List<RuntimeException> failures = new ArrayList<>();
+        try (Connection connection = JdbcUtils.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                for (PendingOrder order : batch) {
+                    Savepoint savepoint = connection.setSavepoint();
+                    try {
+                        orderIds.add(order.insert().insert(connection));
+                        written.add(order);
+                    } catch (RuntimeException e) {
+                        connection.rollback(savepoint);
+                        failed.add(order);
+                        failures.add(e);
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new BookstoreDbException("Failed to commit order batch", e);
+        }
+        // Failures are reported only now, so a caller looking up what beat it, such as
+        // an order placed earlier in the batch with the same idempotency key, finds it
+        for (int i = 0; i < failed.size(); i++) {
+            failed.get(i).result().completeExceptionally(failures.get(i));
+        }
+        for (int i = 0; i < written.size(); i++) {
+            written.get(i).result().complete(orderIds.get(i));
+        }
+    }
+}
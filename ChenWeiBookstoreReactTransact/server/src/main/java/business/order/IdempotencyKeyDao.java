@@ -0,0 +1,23 @@
+package business.order;
+
+import java.sql.Connection;
+
+public interface IdempotencyKeyDao {
+
+    /**
+     * The order placed for an idempotency key, and the hash of the request
+     * that placed it (see OrderRequests).
+     */
+    public record KeyedOrder(long orderId, String requestHash) {}
+
+    /**
+     * Records, in the order's transaction, that the order was placed for the key.
+     * Fails if the key already has an order.
+     */
+    public void create(Connection connection, String idempotencyKey, String requestHash, long orderId);
+
+    /**
+     * Returns the order placed for the key, or null if there is none.
+     */
+    public KeyedOrder findByKey(String idempotencyKey);
+}
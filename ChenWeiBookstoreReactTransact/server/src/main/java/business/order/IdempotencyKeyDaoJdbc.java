@@ -0,0 +1,46 @@
+package business.order;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import business.BookstoreDbException.BookstoreQueryDbException;
+import business.BookstoreDbException.BookstoreUpdateDbException;
+
+import static business.JdbcUtils.getConnection;
+
+public class IdempotencyKeyDaoJdbc implements IdempotencyKeyDao {
+
+    private static final String CREATE_IDEMPOTENCY_KEY_SQL =
+            "INSERT INTO idempotency_key (idempotency_key, customer_order_id, request_hash) VALUES (?, ?, ?)";
+
+    private static final String FIND_BY_KEY_SQL =
+            "SELECT customer_order_id, request_hash FROM idempotency_key WHERE idempotency_key = ?";
+
+    @Override
+    public void create(Connection connection, String idempotencyKey, String requestHash, long orderId) {
+        try (PreparedStatement statement = connection.prepareStatement(CREATE_IDEMPOTENCY_KEY_SQL)) {
+            statement.setString(1, idempotencyKey);
+            statement.setLong(2, orderId);
+            statement.setString(3, requestHash);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new BookstoreUpdateDbException("Encountered problem recording the idempotency key of order id = " + orderId, e);
+        }
+    }
+
+    @Override
+    public KeyedOrder findByKey(String idempotencyKey) {
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_BY_KEY_SQL)) {
+            statement.setString(1, idempotencyKey);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next()
+                        ? new KeyedOrder(resultSet.getLong("customer_order_id"), resultSet.getString("request_hash"))
+                        : null;
+            }
+        } catch (SQLException e) {
+            throw new BookstoreQueryDbException("Encountered problem finding the order of an idempotency key", e);
+        }
+    }
+}
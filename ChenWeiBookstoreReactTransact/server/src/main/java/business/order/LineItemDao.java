@@ -1,5 +1,7 @@
 package business.order;
 
+import business.cart.ShoppingCartItem;
+
 import java.sql.Connection;
 import java.util.List;
 
@@ -8,7 +10,12 @@ import java.util.List;
  */
 public interface LineItemDao {
 
-    public long create(Connection connection, long bookId, long orderId, int quantity);
+    public void create(Connection connection, long bookId, long orderId, int quantity);
+
+    /**
+     * Inserts a line item for every cart item in one batch on the given connection.
+     */
+    public void createAll(Connection connection, long orderId, List<ShoppingCartItem> items);
 
     public List<LineItem> findByOrderId(long orderId);
 }
@@ -6,6 +6,7 @@ import java.util.List;
 
 import static business.JdbcUtils.getConnection;
 import business.BookstoreDbException;
+import business.cart.ShoppingCartItem;
 import business.BookstoreDbException.BookstoreQueryDbException;
 import business.BookstoreDbException.BookstoreUpdateDbException;
 
@@ -21,9 +22,8 @@ public class LineItemDaoJdbc implements LineItemDao {
                     "FROM customer_order_line_item WHERE customer_order_id = ?";
 
     @Override
-    public long create(Connection connection, long bookId, long orderId, int quantity) {
-        try (PreparedStatement statement =
-                     connection.prepareStatement(CREATE_LINE_ITEM_SQL, Statement.RETURN_GENERATED_KEYS)) {
+    public void create(Connection connection, long bookId, long orderId, int quantity) {
+        try (PreparedStatement statement = connection.prepareStatement(CREATE_LINE_ITEM_SQL)) {
             statement.setLong(1, bookId);         // Changed order here
             statement.setLong(2, orderId);        // Changed order here
             statement.setInt(3, quantity);
@@ -31,17 +31,28 @@ public class LineItemDaoJdbc implements LineItemDao {
             if (affected != 1) {
                 throw new BookstoreUpdateDbException("Failed to insert an order line item, affected row count = " + affected);
             }
+        } catch (SQLException e) {
+            throw new BookstoreUpdateDbException("Encountered problem creating a new line item ", e);
+        }
+    }
 
-            // Get the generated ID
-            try (ResultSet rs = statement.getGeneratedKeys()) {
-                if (rs.next()) {
-                    return rs.getLong(1);
-                } else {
-                    return 0;
+    @Override
+    public void createAll(Connection connection, long orderId, List<ShoppingCartItem> items) {
+        try (PreparedStatement statement = connection.prepareStatement(CREATE_LINE_ITEM_SQL)) {
+            for (ShoppingCartItem item : items) {
+                statement.setLong(1, item.getBookId());
+                statement.setLong(2, orderId);
+                statement.setInt(3, item.getQuantity());
+                statement.addBatch();
+            }
+            int[] affected = statement.executeBatch();
+            for (int count : affected) {
+                if (count != 1 && count != Statement.SUCCESS_NO_INFO) {
+                    throw new BookstoreUpdateDbException("Failed to insert an order line item, affected row count = " + count);
                 }
             }
         } catch (SQLException e) {
-            throw new BookstoreUpdateDbException("Encountered problem creating a new line item ", e);
+            throw new BookstoreUpdateDbException("Encountered problem creating line items for order " + orderId, e);
         }
     }
 
@@ -1,14 +1,34 @@
 package business.order;
 
+import business.customer.Customer;
+
 import java.sql.Connection;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface OrderDao {
 
-    public long create(Connection connection, int amount, int confirmationNumber, long customerId);
+    /**
+     * Inserts an order created at dateCreated, which is stored to the second,
+     * for the given customer. The order keeps a copy of the customer's
+     * details, so it goes on showing the ones it was placed with.
+     */
+    public void create(Connection connection, long orderId, int amount, Date dateCreated,
+                       int confirmationNumber, Customer customer);
 
     public List<Order> findAll();
 
+    /**
+     * Hands each order to the action as it is read, without collecting them in a list first.
+     */
+    public void forEach(Consumer<Order> action);
+
+    /**
+     * Returns up to limit orders with ids above afterOrderId, in order id order.
+     */
+    public List<Order> findAfter(long afterOrderId, int limit);
+
     public Order findByOrderId(long orderId);
 
     public List<Order> findByCustomerId(long customerId);
@@ -4,25 +4,33 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
+import business.customer.Customer;
 import business.BookstoreDbException.BookstoreQueryDbException;
 import business.BookstoreDbException.BookstoreUpdateDbException;
 
 import static business.JdbcUtils.getConnection;
+import static business.JdbcUtils.prepareStreamingStatement;
 
 public class OrderDaoJdbc implements OrderDao {
 
     private static final String CREATE_ORDER_SQL =
-            "INSERT INTO customer_order (amount, confirmation_number, customer_id) " +
-                    "VALUES (?, ?, ?)";
+            "INSERT INTO customer_order (customer_order_id, amount, date_created, confirmation_number, customer_id, " +
+                    "name, address, phone, email, cc_number, cc_exp_date) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
     private static final String FIND_ALL_SQL =
             "SELECT customer_order_id, customer_id, amount, date_created, confirmation_number " +
                     "FROM customer_order";
 
+    private static final String FIND_AFTER_SQL =
+            "SELECT customer_order_id, customer_id, amount, date_created, confirmation_number " +
+                    "FROM customer_order WHERE customer_order_id > ? ORDER BY customer_order_id LIMIT ?";
+
     private static final String FIND_BY_CUSTOMER_ID_SQL =
             "SELECT customer_order_id, customer_id, amount, date_created, confirmation_number " +
                     "FROM customer_order WHERE customer_id = ?";
@@ -33,23 +41,24 @@ public class OrderDaoJdbc implements OrderDao {
     ;
 
     @Override
-    public long create(Connection connection, int amount, int confirmationNumber, long customerId) {
-        try (PreparedStatement statement = connection.prepareStatement(CREATE_ORDER_SQL, Statement.RETURN_GENERATED_KEYS)) {
-            statement.setInt(1, amount);
-            statement.setInt(2, confirmationNumber);
-            statement.setLong(3, customerId);
+    public void create(Connection connection, long orderId, int amount, Date dateCreated,
+                       int confirmationNumber, Customer customer) {
+        try (PreparedStatement statement = connection.prepareStatement(CREATE_ORDER_SQL)) {
+            statement.setLong(1, orderId);
+            statement.setInt(2, amount);
+            statement.setTimestamp(3, new Timestamp(dateCreated.getTime()));
+            statement.setInt(4, confirmationNumber);
+            statement.setLong(5, customer.customerId());
+            statement.setString(6, customer.customerName());
+            statement.setString(7, customer.address());
+            statement.setString(8, customer.phone());
+            statement.setString(9, customer.email());
+            statement.setString(10, customer.ccNumber());
+            statement.setDate(11, new java.sql.Date(customer.ccExpDate().getTime()));
             int affected = statement.executeUpdate();
             if (affected != 1) {
                 throw new BookstoreUpdateDbException("Failed to insert an order, affected row count = " + affected);
             }
-            long customerOrderId;
-            ResultSet rs = statement.getGeneratedKeys();
-            if (rs.next()) {
-                customerOrderId = rs.getLong(1);
-            } else {
-                throw new BookstoreUpdateDbException("Failed to retrieve customerOrderId auto-generated key");
-            }
-            return customerOrderId;
         } catch (SQLException e) {
             throw new BookstoreUpdateDbException("Encountered problem creating a new order", e);
         }
@@ -71,6 +80,37 @@ public class OrderDaoJdbc implements OrderDao {
         return result;
     }
 
+    @Override
+    public void forEach(Consumer<Order> action) {
+        try (Connection connection = getConnection();
+             PreparedStatement statement = prepareStreamingStatement(connection, FIND_ALL_SQL);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                action.accept(readOrder(resultSet));
+            }
+        } catch (SQLException e) {
+            throw new BookstoreQueryDbException("Encountered problem streaming all orders", e);
+        }
+    }
+
+    @Override
+    public List<Order> findAfter(long afterOrderId, int limit) {
+        List<Order> result = new ArrayList<>(limit);
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_AFTER_SQL)) {
+            statement.setLong(1, afterOrderId);
+            statement.setInt(2, limit);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    result.add(readOrder(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            throw new BookstoreQueryDbException("Encountered problem finding orders after id = " + afterOrderId, e);
+        }
+        return result;
+    }
+
     @Override
     public Order findByOrderId(long orderId) {
         Order result = null;
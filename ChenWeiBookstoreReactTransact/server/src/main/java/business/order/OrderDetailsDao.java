@@ -0,0 +1,11 @@
+package business.order;
+
+public interface OrderDetailsDao {
+
+    /**
+     * Reads an order with its customer, as they were when the order was
+     * placed, and its line items and books in one round trip.
+     * Returns null if there is no such order.
+     */
+    public OrderDetails findByOrderId(long orderId);
+}
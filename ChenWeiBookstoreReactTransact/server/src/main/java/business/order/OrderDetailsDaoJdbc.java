@@ -0,0 +1,93 @@
+package business.order;
+
+import business.book.Book;
+import business.customer.Customer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import business.BookstoreDbException.BookstoreQueryDbException;
+
+import static business.JdbcUtils.getConnection;
+
+public class OrderDetailsDaoJdbc implements OrderDetailsDao {
+
+    private static final String FIND_BY_CUSTOMER_ORDER_ID_SQL =
+            "SELECT o.customer_order_id, o.customer_id, o.amount, o.date_created, o.confirmation_number, " +
+                    "o.name AS customer_name, o.address, o.phone, o.email, o.cc_number, o.cc_exp_date, " +
+                    "li.book_id AS line_item_book_id, li.quantity, " +
+                    "b.book_id, b.title, b.author, b.description, b.price, b.rating, " +
+                    "b.is_public, b.is_featured, b.category_id " +
+                    "FROM customer_order o " +
+                    "LEFT JOIN customer_order_line_item li ON li.customer_order_id = o.customer_order_id " +
+                    "LEFT JOIN book b ON b.book_id = li.book_id " +
+                    "WHERE o.customer_order_id = ? " +
+                    "ORDER BY li.book_id";
+
+    @Override
+    public OrderDetails findByOrderId(long orderId) {
+        Order order = null;
+        Customer customer = null;
+        List<LineItem> lineItems = new ArrayList<>();
+        List<Book> books = new ArrayList<>();
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_BY_CUSTOMER_ORDER_ID_SQL)) {
+            statement.setLong(1, orderId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    if (order == null) {
+                        order = readOrder(resultSet);
+                        customer = readCustomer(resultSet);
+                    }
+                    long lineItemBookId = resultSet.getLong("line_item_book_id");
+                    if (resultSet.wasNull()) {
+                        continue;
+                    }
+                    lineItems.add(new LineItem(lineItemBookId, orderId, resultSet.getInt("quantity")));
+                    resultSet.getLong("book_id");
+                    books.add(resultSet.wasNull() ? null : readBook(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            throw new BookstoreQueryDbException("Encountered problem finding details of customer order id = " + orderId, e);
+        }
+        return order == null ? null : new OrderDetails(order, customer, lineItems, books);
+    }
+
+    private Order readOrder(ResultSet resultSet) throws SQLException {
+        long orderId = resultSet.getLong("customer_order_id");
+        int amount = resultSet.getInt("amount");
+        Date dateCreated = resultSet.getTimestamp("date_created");
+        int confirmationNumber = resultSet.getInt("confirmation_number");
+        long customerId = resultSet.getLong("customer_id");
+        return new Order(orderId, amount, dateCreated, confirmationNumber, customerId);
+    }
+
+    private Customer readCustomer(ResultSet resultSet) throws SQLException {
+        long customerId = resultSet.getLong("customer_id");
+        String name = resultSet.getString("customer_name");
+        String address = resultSet.getString("address");
+        String phone = resultSet.getString("phone");
+        String email = resultSet.getString("email");
+        String ccNumber = resultSet.getString("cc_number");
+        Date ccExpDate = resultSet.getDate("cc_exp_date");
+        return new Customer(customerId, name, address, phone, email, ccNumber, ccExpDate);
+    }
+
+    private Book readBook(ResultSet resultSet) throws SQLException {
+        long bookId = resultSet.getLong("book_id");
+        String title = resultSet.getString("title");
+        String author = resultSet.getString("author");
+        String description = resultSet.getString("description");
+        int price = resultSet.getInt("price");
+        double rating = resultSet.getDouble("rating");
+        boolean isPublic = resultSet.getBoolean("is_public");
+        boolean isFeatured = resultSet.getBoolean("is_featured");
+        long categoryId = resultSet.getLong("category_id");
+        return new Book(bookId, title, author, description, price, rating, isPublic, isFeatured, categoryId);
+    }
+}
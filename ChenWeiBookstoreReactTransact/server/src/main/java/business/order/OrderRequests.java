@@ -0,0 +1,47 @@
+package business.order;
+
+import business.cart.ShoppingCart;
+import business.customer.CustomerForm;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Fingerprints order requests, so an Idempotency-Key sent again with the same
+ * order can be told apart from one reused for a different order.
+ *
+ * The hash is the SHA-256, in hex, of the customer form and cart written as
+ * JSON with properties in name order, so it doesn't depend on how the client
+ * laid out its JSON.
+ */
+public final class OrderRequests {
+
+    private static final ObjectMapper CANONICAL_MAPPER = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    private OrderRequests() {
+    }
+
+    public static String requestHash(CustomerForm customerForm, ShoppingCart cart) {
+        try {
+            // Either may be missing from a request that fails validation
+            Map<String, Object> request = new HashMap<>();
+            request.put("customerForm", customerForm);
+            request.put("cart", cart);
+            byte[] json = CANONICAL_MAPPER.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash an order request", e);
+        }
+    }
+}
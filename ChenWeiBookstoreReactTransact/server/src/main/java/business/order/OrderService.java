@@ -5,7 +5,18 @@ import business.customer.CustomerForm;
 
 public interface OrderService {
 
-    long placeOrder(CustomerForm form, ShoppingCart cart);
+    default long placeOrder(CustomerForm form, ShoppingCart cart) {
+        return placeOrder(form, cart, null, null);
+    }
+
+    /**
+     * Places the order at most once for a non-null idempotency key: if an order
+     * was already placed with the key for the same request, its id is returned
+     * instead, and if it was placed for a different request, the order is
+     * rejected. The request hash is OrderRequests.requestHash of the form and
+     * cart, passed by callers that have already computed it, or null.
+     */
+    long placeOrder(CustomerForm form, ShoppingCart cart, String idempotencyKey, String requestHash);
 
     OrderDetails getOrderDetails(long orderId);
 
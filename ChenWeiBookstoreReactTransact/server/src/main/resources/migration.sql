@@ -0,0 +1,110 @@
+--
+-- Brings a MySQL database created from the original schema.sql up to date
+-- with the current one. Run it once, with the servers stopped:
+--
+--     mysql -u <user> -p <database> < migration.sql
+--
+-- The statements that must not run twice stop the script with an error if
+-- they do (duplicate column, duplicate key).
+--
+
+--
+-- Returning customers are found by customer key (see CustomerKeys). Existing
+-- customers, one row per order until now, are left without a key, so the
+-- first order each places afterwards adds the row that keeps their key.
+--
+
+ALTER TABLE `customer` ADD COLUMN `customer_key` VARCHAR(100);
+ALTER TABLE `customer` ADD UNIQUE KEY (`customer_key`);
+
+--
+-- Stock tracked per book
+--
+
+ALTER TABLE `book` ADD COLUMN `stock` INT NOT NULL DEFAULT 100;
+
+--
+-- Id blocks. IdAllocator adds a table's row the first time it reserves ids,
+-- starting after the largest id in the table, except for customer_order,
+-- whose row is added below.
+--
+
+CREATE TABLE `id_block` (
+                            `name` VARCHAR(45) NOT NULL,
+                            `next_id` BIGINT UNSIGNED NOT NULL,
+                            PRIMARY KEY (`name`)
+) ENGINE = InnoDB;
+
+--
+-- Confirmation numbers are now computed from the order id by
+-- DefaultOrderService.confirmationNumber(), a bijection on 0..999,999,999:
+--
+--     (customer_order_id * 387420489 + 275604541) MOD 1000000000
+--
+-- Existing orders kept their random confirmation numbers, which future order
+-- ids may map to. The id a number belongs to is
+--
+--     ((confirmation_number + 1000000000 - 275604541) MOD 1000000000) * 513180409 MOD 1000000000
+--
+-- (513180409 is the inverse of the multiplier), and only orders whose number
+-- belongs to an id above every existing one can collide. This lists them and
+-- gives each the number of one of the ids right after the existing ones;
+-- those ids are then skipped by starting customer_order's id block after
+-- them. No number is used twice afterwards, which the unique key checks.
+--
+
+SET @max_order_id = (SELECT COALESCE(MAX(`customer_order_id`), 0) FROM `customer_order`);
+SET @next_order_id = @max_order_id;
+
+SELECT `customer_order_id`, `confirmation_number` AS `conflicting_confirmation_number`
+FROM `customer_order`
+WHERE MOD(MOD(`confirmation_number` + 1000000000 - 275604541, 1000000000) * 513180409, 1000000000) > @max_order_id;
+
+UPDATE `customer_order`
+SET `confirmation_number` = MOD((@next_order_id := @next_order_id + 1) * 387420489 + 275604541, 1000000000)
+WHERE MOD(MOD(`confirmation_number` + 1000000000 - 275604541, 1000000000) * 513180409, 1000000000) > @max_order_id;
+
+INSERT INTO `id_block` (`name`, `next_id`) VALUES ('customer_order', @next_order_id + 1);
+
+ALTER TABLE `customer_order` ADD UNIQUE KEY (`confirmation_number`);
+
+--
+-- Orders keep a copy of the customer's details as they were when the order
+-- was placed. Existing orders get their customer's current ones, which, with
+-- one customer row per order until now, are the ones they were placed with.
+--
+
+ALTER TABLE `customer_order` ADD COLUMN `name` VARCHAR(45);
+ALTER TABLE `customer_order` ADD COLUMN `address` VARCHAR(45);
+ALTER TABLE `customer_order` ADD COLUMN `phone` VARCHAR(45);
+ALTER TABLE `customer_order` ADD COLUMN `email` VARCHAR(45);
+ALTER TABLE `customer_order` ADD COLUMN `cc_number` VARCHAR(19);
+ALTER TABLE `customer_order` ADD COLUMN `cc_exp_date` DATE;
+
+UPDATE `customer_order`
+SET `name` = (SELECT `name` FROM `customer` WHERE `customer`.`customer_id` = `customer_order`.`customer_id`),
+    `address` = (SELECT `address` FROM `customer` WHERE `customer`.`customer_id` = `customer_order`.`customer_id`),
+    `phone` = (SELECT `phone` FROM `customer` WHERE `customer`.`customer_id` = `customer_order`.`customer_id`),
+    `email` = (SELECT `email` FROM `customer` WHERE `customer`.`customer_id` = `customer_order`.`customer_id`),
+    `cc_number` = (SELECT `cc_number` FROM `customer` WHERE `customer`.`customer_id` = `customer_order`.`customer_id`),
+    `cc_exp_date` = (SELECT `cc_exp_date` FROM `customer` WHERE `customer`.`customer_id` = `customer_order`.`customer_id`);
+
+ALTER TABLE `customer_order` MODIFY COLUMN `name` VARCHAR(45) NOT NULL;
+ALTER TABLE `customer_order` MODIFY COLUMN `address` VARCHAR(45) NOT NULL;
+ALTER TABLE `customer_order` MODIFY COLUMN `phone` VARCHAR(45) NOT NULL;
+ALTER TABLE `customer_order` MODIFY COLUMN `email` VARCHAR(45) NOT NULL;
+ALTER TABLE `customer_order` MODIFY COLUMN `cc_number` VARCHAR(19) NOT NULL;
+ALTER TABLE `customer_order` MODIFY COLUMN `cc_exp_date` DATE NOT NULL;
+
+--
+-- Idempotency keys of placed orders
+--
+
+CREATE TABLE `idempotency_key` (
+                                   `idempotency_key` VARCHAR(255) NOT NULL,
+                                   `customer_order_id` INT UNSIGNED NOT NULL,
+                                   `request_hash` CHAR(64) NOT NULL,
+                                   `date_created` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                   PRIMARY KEY (`idempotency_key`),
+                                   FOREIGN KEY (`customer_order_id`) REFERENCES `customer_order`(`customer_order_id`)
+) ENGINE = InnoDB;
\ No newline at end of file
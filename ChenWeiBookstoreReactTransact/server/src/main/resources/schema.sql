@@ -2,11 +2,13 @@
 -- Drop tables in reverse order of their creation
 --
 
+DROP TABLE IF EXISTS `idempotency_key`;
 DROP TABLE IF EXISTS `customer_order_line_item`;
 DROP TABLE IF EXISTS `book`;
 DROP TABLE IF EXISTS `category`;
 DROP TABLE IF EXISTS `customer_order`;
 DROP TABLE IF EXISTS `customer`;
+DROP TABLE IF EXISTS `id_block`;
 
 --
 -- Table structure for table `customer`
@@ -20,11 +22,14 @@ CREATE  TABLE `customer` (
                              `email` VARCHAR(45) NOT NULL,
                              `cc_number` VARCHAR(19) NOT NULL,
                              `cc_exp_date` DATE NOT NULL,
-                             PRIMARY KEY (`customer_id`)
+                             `customer_key` VARCHAR(100),
+                             PRIMARY KEY (`customer_id`),
+                             UNIQUE KEY (`customer_key`)
 ) ENGINE = InnoDB;
 
 --
--- Table structure for table `customer_order`
+-- Table structure for table `customer_order`, with a copy of the customer's
+-- details as they were when the order was placed
 --
 
 CREATE  TABLE `customer_order` (
@@ -33,7 +38,14 @@ CREATE  TABLE `customer_order` (
                                    `date_created` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
                                    `confirmation_number` INT UNSIGNED NOT NULL,
                                    `customer_id` INT UNSIGNED,
+                                   `name` VARCHAR(45) NOT NULL,
+                                   `address` VARCHAR(45) NOT NULL,
+                                   `phone` VARCHAR(45) NOT NULL,
+                                   `email` VARCHAR(45) NOT NULL,
+                                   `cc_number` VARCHAR(19) NOT NULL,
+                                   `cc_exp_date` DATE NOT NULL,
                                    PRIMARY KEY (`customer_order_id`),
+                                   UNIQUE KEY (`confirmation_number`),
                                    FOREIGN KEY (`customer_id`) REFERENCES `customer`(`customer_id`)
 ) ENGINE = InnoDB;
 
@@ -61,6 +73,7 @@ CREATE TABLE `book` (
                         `is_public` BOOLEAN NOT NULL,
                         `is_featured` BOOLEAN NOT NULL,
                         `category_id` INT UNSIGNED,
+                        `stock` INT NOT NULL DEFAULT 100,
                         PRIMARY KEY (`book_id`),
                         FOREIGN KEY (`category_id`) REFERENCES `category`(`category_id`)
 ) ENGINE = InnoDB;
@@ -76,4 +89,29 @@ CREATE TABLE `customer_order_line_item` (
                                             PRIMARY KEY (`customer_order_id`, `book_id`),
                                             FOREIGN KEY (`customer_order_id`) REFERENCES `customer_order`(`customer_order_id`),
                                             FOREIGN KEY (`book_id`) REFERENCES `book`(`book_id`)
+) ENGINE = InnoDB;
+
+--
+-- Table structure for the table `idempotency_key`, the order placed for each
+-- Idempotency-Key a client sent with it, and the SHA-256 of the request, in hex
+--
+
+CREATE TABLE `idempotency_key` (
+                                   `idempotency_key` VARCHAR(255) NOT NULL,
+                                   `customer_order_id` INT UNSIGNED NOT NULL,
+                                   `request_hash` CHAR(64) NOT NULL,
+                                   `date_created` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                   PRIMARY KEY (`idempotency_key`),
+                                   FOREIGN KEY (`customer_order_id`) REFERENCES `customer_order`(`customer_order_id`)
+) ENGINE = InnoDB;
+
+--
+-- Table structure for the table `id_block`, the next unreserved id for each table
+-- whose ids the server allocates itself
+--
+
+CREATE TABLE `id_block` (
+                            `name` VARCHAR(45) NOT NULL,
+                            `next_id` BIGINT UNSIGNED NOT NULL,
+                            PRIMARY KEY (`name`)
 ) ENGINE = InnoDB;
\ No newline at end of file
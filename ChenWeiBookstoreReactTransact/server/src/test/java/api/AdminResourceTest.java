@@ -0,0 +1,126 @@
+package api;
+
+import business.JdbcUtils;
+import business.customer.CustomerDaoJdbc;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdminResourceTest {
+
+    private static ApplicationHandler handler;
+
+    @BeforeAll
+    static void startApplication() throws SQLException {
+        System.setProperty("bookstore.db", "embedded");
+        System.setProperty("bookstore.admin.enabled", "true");
+        handler = new ApplicationHandler(new ResourceConfig(ApiResource.class, AdminResource.class,
+                MetricsResource.class, ApiExceptionHandler.class, ObjectMapperResolver.class));
+        // Enough customers for several pages
+        CustomerDaoJdbc customerDao = new CustomerDaoJdbc();
+        try (Connection connection = JdbcUtils.getConnection()) {
+            for (long customerId = 910_001; customerId <= 910_005; customerId++) {
+                customerDao.create(connection, customerId, "admin-test-" + customerId, "Ada", "1 Old Road",
+                        "5715550001", "admin" + customerId + "@example.com", "4111111111111111",
+                        java.sql.Date.valueOf("2030-01-01"));
+            }
+        }
+    }
+
+    @Test
+    void eachResourceAnswersUnderItsOwnPath() throws Exception {
+        assertEquals(200, get("admin/orders").status());
+        assertEquals(200, get("admin/customers?limit=1").status());
+        // Only ApiResource's POST is at /orders
+        assertEquals(405, get("orders").status());
+
+        Exchange metrics = get("metrics");
+        assertEquals(200, metrics.status());
+        assertTrue(metrics.body().contains("bookstore_ready"));
+        assertEquals(404, get("metrics/ready").status());
+    }
+
+    @Test
+    void pagesFollowTheirCursorsThroughEveryCustomerOnce() throws Exception {
+        List<Long> exported = customerIds(get("admin/customers").body());
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            Exchange page = get("admin/customers?limit=2" + (cursor == null ? "" : "&after=" + cursor));
+            assertEquals(200, page.status());
+            List<Long> ids = customerIds(page.body());
+            assertTrue(ids.size() <= 2);
+            paged.addAll(ids);
+            cursor = page.header(KeysetPages.NEXT_CURSOR_HEADER);
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(exported, paged);
+        assertTrue(pages >= 3);
+        for (int i = 1; i < paged.size(); i++) {
+            assertTrue(paged.get(i - 1) < paged.get(i));
+        }
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() throws Exception {
+        String lastId = KeysetPages.encodeCursor("customer", 910_004);
+
+        Exchange page = get("admin/customers?limit=5&after=" + lastId);
+
+        assertEquals(List.of(910_005L), customerIds(page.body()));
+        assertNull(page.header(KeysetPages.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void badCursorsAndLimitsAreRejected() throws Exception {
+        // A cursor only works with the kind of list it came from
+        String orderCursor = KeysetPages.encodeCursor("order", 1);
+        assertEquals(400, get("admin/customers?limit=2&after=" + orderCursor).status());
+        assertEquals(400, get("admin/customers?limit=2&after=not-a-cursor").status());
+        assertEquals(400, get("admin/customers?limit=0").status());
+        assertEquals(400, get("admin/orders?limit=" + (KeysetPages.MAX_LIMIT + 1)).status());
+    }
+
+    private static List<Long> customerIds(String json) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode customer : ObjectMapperResolver.objectMapper().readTree(json)) {
+            ids.add(customer.get("customerId").asLong());
+        }
+        return ids;
+    }
+
+    record Exchange(int status, ContainerResponse response, String body) {
+
+        String header(String name) {
+            return response.getHeaderString(name);
+        }
+    }
+
+    static Exchange get(String path) throws Exception {
+        ContainerRequest request = new ContainerRequest(URI.create("http://localhost/"),
+                URI.create("http://localhost/" + path), "GET", null, new MapPropertiesDelegate(), null);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ContainerResponse response = handler.apply(request, body).get();
+        return new Exchange(response.getStatus(), response, body.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,100 @@
+package api;
+
+import business.book.Book;
+import business.book.BookDaoJdbc;
+import business.book.BookForm;
+import business.cart.ShoppingCart;
+import business.cart.ShoppingCartItem;
+import business.customer.CustomerForm;
+import business.order.OrderForm;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.ResourceConfig;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ApiResourceTest {
+
+    private static ApplicationHandler handler;
+
+    @BeforeAll
+    static void startApplication() {
+        System.setProperty("bookstore.db", "embedded");
+        handler = new ApplicationHandler(new ResourceConfig(ApiResource.class, ApiExceptionHandler.class,
+                ObjectMapperResolver.class));
+    }
+
+    @Test
+    void orderWithoutABodyIsRejected() throws Exception {
+        assertEquals(400, post(null, "").status());
+        assertEquals(400, post("no-body", "").status());
+    }
+
+    @Test
+    void orderSentAgainWithItsKeyIsPlacedOnce() throws Exception {
+        String order = orderJson("replay@example.com");
+
+        Exchange first = post("replay-key", order);
+        Exchange again = post("replay-key", order);
+
+        assertEquals(200, first.status());
+        assertEquals(200, again.status());
+        assertEquals(first.body().get("order").get("orderId"), again.body().get("order").get("orderId"));
+    }
+
+    @Test
+    void keyReusedForADifferentOrderIsRejected() throws Exception {
+        assertEquals(200, post("reused-key", orderJson("first@example.com")).status());
+
+        assertEquals(422, post("reused-key", orderJson("second@example.com")).status());
+    }
+
+    private record Exchange(int status, JsonNode body) {}
+
+    private static Exchange post(String idempotencyKey, String json) throws Exception {
+        ContainerRequest request = new ContainerRequest(URI.create("http://localhost/"),
+                URI.create("http://localhost/orders"), "POST", null, new MapPropertiesDelegate(), null);
+        request.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+        if (idempotencyKey != null) {
+            request.header(IdempotentOrders.HEADER, idempotencyKey);
+        }
+        request.setEntityStream(new ByteArrayInputStream(json.getBytes()));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ContainerResponse response = handler.apply(request, body).get();
+        return new Exchange(response.getStatus(), ObjectMapperResolver.objectMapper().readTree(body.toByteArray()));
+    }
+
+    private static String orderJson(String email) throws Exception {
+        YearMonth expiry = YearMonth.now().plusYears(2);
+        CustomerForm customerForm = new CustomerForm("Sophia Chen", "2251 Pimmit Drive", "(571) 594-7580",
+                email, "4111 1111 1111 1111",
+                String.valueOf(expiry.getMonthValue()), String.valueOf(expiry.getYear()));
+        Book book = new BookDaoJdbc().findByCategoryId(1001).get(0);
+        BookForm bookForm = new BookForm();
+        bookForm.setBookId(book.bookId());
+        bookForm.setPrice(book.price());
+        bookForm.setCategoryId(book.categoryId());
+        ShoppingCartItem item = new ShoppingCartItem();
+        item.setBookForm(bookForm);
+        item.setQuantity(1);
+        ShoppingCart cart = new ShoppingCart();
+        cart.setItems(List.of(item));
+        OrderForm orderForm = new OrderForm();
+        orderForm.setCustomerForm(customerForm);
+        orderForm.setCart(cart);
+        return ObjectMapperResolver.objectMapper().writeValueAsString(orderForm);
+    }
+}
@@ -0,0 +1,105 @@
+package api;
+
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.ResourceConfig;
+import jakarta.ws.rs.core.HttpHeaders;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApiResponseFilterTest {
+
+    private static ApplicationHandler handler;
+
+    @BeforeAll
+    static void startApplication() {
+        System.setProperty("bookstore.db", "embedded");
+        // The sample catalog's bodies are all under the default threshold
+        System.setProperty("bookstore.compression.minBytes", "64");
+        handler = new ApplicationHandler(new ResourceConfig(ApiResource.class, ApiExceptionHandler.class,
+                ApiResponseFilter.class, CompressionInterceptor.class, ObjectMapperResolver.class));
+    }
+
+    @Test
+    void catalogResponseHasStrongETagOfItsBody() throws Exception {
+        Exchange first = get("categories/1001/books", null, null);
+        Exchange second = get("categories/1001/books", null, null);
+
+        assertEquals(200, first.status());
+        String etag = first.header(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertFalse(etag.startsWith("W/"));
+        assertEquals(ApiResponseFilter.catalogETag(first.body()), etag);
+        assertEquals(etag, second.header(HttpHeaders.ETAG));
+        assertNotEquals(etag, get("categories/1002/books", null, null).header(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void matchingIfNoneMatchIsAnsweredWith304() throws Exception {
+        String etag = get("categories/1001/books", null, null).header(HttpHeaders.ETAG);
+
+        Exchange notModified = get("categories/1001/books", null, etag);
+
+        assertEquals(304, notModified.status());
+        assertEquals(0, notModified.body().length);
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, notModified.header(HttpHeaders.VARY));
+        assertEquals(etag, notModified.header(HttpHeaders.ETAG));
+        assertEquals(200, get("categories/1001/books", null, "\"other\"").status());
+    }
+
+    @Test
+    void compressedResponseHasWeakETagThatStillMatches() throws Exception {
+        String path = "categories/1002/books";
+        Exchange plain = get(path, null, null);
+        Exchange gzipped = get(path, "gzip", null);
+
+        assertEquals("gzip", gzipped.header(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("W/" + plain.header(HttpHeaders.ETAG), gzipped.header(HttpHeaders.ETAG));
+        assertTrue(gzipped.header(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(gzipped.body())).readAllBytes();
+        assertArrayEquals(plain.body(), body);
+
+        assertEquals(304, get(path, "gzip", gzipped.header(HttpHeaders.ETAG)).status());
+    }
+
+    private record Exchange(int status, ContainerResponse response, byte[] body) {
+
+        String header(String name) {
+            return response.getHeaderString(name);
+        }
+
+        @Override
+        public String toString() {
+            return status + " " + new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Exchange get(String path, String acceptEncoding, String ifNoneMatch) throws Exception {
+        ContainerRequest request = new ContainerRequest(URI.create("http://localhost/"),
+                URI.create("http://localhost/" + path), "GET", null, new MapPropertiesDelegate(), null);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ContainerResponse response = handler.apply(request, body).get();
+        return new Exchange(response.getStatus(), response, body.toByteArray());
+    }
+}
@@ -0,0 +1,192 @@
+package api;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaticAssetFilterTest {
+
+    private static final String SCRIPT = "/static/js/main.1a2b3c.js";
+    private static final String COVER = "/static/media/cover.4d5e6f.jpg";
+
+    @TempDir
+    Path webapp;
+
+    private final StaticAssetFilter filter = new StaticAssetFilter();
+    private byte[] script;
+    private byte[] gzippedScript;
+    private byte[] cover;
+
+    @BeforeEach
+    void writeBuild() throws IOException {
+        script = "console.log('bookstore');".getBytes(StandardCharsets.UTF_8);
+        gzippedScript = new byte[] {31, -117, 8, 0, 1, 2, 3};
+        cover = new byte[100 * 1024];
+        Arrays.fill(cover, (byte) 7);
+        write("/asset-manifest.json",
+                ("{\"files\": {\"main.js\": \"/bookstore" + SCRIPT + "\", \"cover.jpg\": \"/bookstore" + COVER + "\"}}")
+                        .getBytes(StandardCharsets.UTF_8));
+        write(SCRIPT, script);
+        write(SCRIPT + ".gz", gzippedScript);
+        write(COVER, cover);
+        filter.init(filterConfig());
+    }
+
+    @Test
+    void gzipCopyIsServedToClientsThatAcceptIt() throws Exception {
+        Exchange exchange = get(SCRIPT, "gzip, deflate", false);
+
+        assertEquals("gzip", exchange.headers.get("Content-Encoding"));
+        assertEquals("Accept-Encoding", exchange.headers.get("Vary"));
+        assertEquals("public, max-age=31536000, immutable", exchange.headers.get("Cache-Control"));
+        assertEquals(gzippedScript.length, exchange.contentLength);
+        assertArrayEquals(gzippedScript, exchange.body.toByteArray());
+        assertFalse(exchange.passedOn.get());
+    }
+
+    @Test
+    void plainFileIsServedToOtherClientsWithTheSameVary() throws Exception {
+        Exchange exchange = get(SCRIPT, null, false);
+
+        assertNull(exchange.headers.get("Content-Encoding"));
+        assertEquals("Accept-Encoding", exchange.headers.get("Vary"));
+        assertArrayEquals(script, exchange.body.toByteArray());
+    }
+
+    @Test
+    void largeFileIsHandedToSendfileWhenTheConnectorSupportsIt() throws Exception {
+        Exchange exchange = get(COVER, "gzip", true);
+
+        assertEquals(Path.of(webapp + COVER).toAbsolutePath().toString(),
+                exchange.attributes.get("org.apache.tomcat.sendfile.filename"));
+        assertEquals(0L, exchange.attributes.get("org.apache.tomcat.sendfile.start"));
+        assertEquals((long) cover.length, exchange.attributes.get("org.apache.tomcat.sendfile.end"));
+        assertEquals(cover.length, exchange.contentLength);
+        assertEquals(0, exchange.body.size());
+        // A file without a .gz copy doesn't vary by encoding
+        assertNull(exchange.headers.get("Vary"));
+        assertNull(exchange.headers.get("Content-Encoding"));
+    }
+
+    @Test
+    void largeFileIsCopiedWithoutSendfile() throws Exception {
+        Exchange exchange = get(COVER, null, false);
+
+        assertNull(exchange.attributes.get("org.apache.tomcat.sendfile.filename"));
+        assertArrayEquals(cover, exchange.body.toByteArray());
+    }
+
+    @Test
+    void indexIsRevalidatedAndLeftToTheContainer() throws Exception {
+        Exchange exchange = get("/index.html", "gzip", false);
+
+        assertEquals("no-cache", exchange.headers.get("Cache-Control"));
+        assertTrue(exchange.passedOn.get());
+    }
+
+    private void write(String path, byte[] content) throws IOException {
+        Path file = Path.of(webapp + path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+    }
+
+    private static final class Exchange {
+        final Map<String, Object> attributes = new HashMap<>();
+        final Map<String, String> headers = new HashMap<>();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final AtomicBoolean passedOn = new AtomicBoolean();
+        long contentLength = -1;
+    }
+
+    private Exchange get(String path, String acceptEncoding, boolean sendfile) throws Exception {
+        Exchange exchange = new Exchange();
+        if (sendfile) {
+            exchange.attributes.put("org.apache.tomcat.sendfile.support", true);
+        }
+        HttpServletRequest request = fake(HttpServletRequest.class, (method, args) -> switch (method) {
+            case "getMethod" -> "GET";
+            case "getServletPath" -> path;
+            case "getDispatcherType" -> DispatcherType.REQUEST;
+            case "getHeader" -> "Accept-Encoding".equals(args[0]) ? acceptEncoding : null;
+            case "getAttribute" -> exchange.attributes.get((String) args[0]);
+            case "setAttribute" -> exchange.attributes.put((String) args[0], args[1]);
+            default -> null;
+        });
+        ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                exchange.body.write(b);
+            }
+        };
+        HttpServletResponse response = fake(HttpServletResponse.class, (method, args) -> switch (method) {
+            case "setHeader" -> exchange.headers.put((String) args[0], (String) args[1]);
+            case "setContentLengthLong" -> exchange.contentLength = (Long) args[0];
+            case "getOutputStream" -> out;
+            default -> null;
+        });
+        FilterChain chain = (req, res) -> exchange.passedOn.set(true);
+        filter.doFilter(request, response, chain);
+        return exchange;
+    }
+
+    private FilterConfig filterConfig() {
+        ServletContext servletContext = fake(ServletContext.class, (method, args) -> switch (method) {
+            case "getRealPath" -> webapp + (String) args[0];
+            case "getResourceAsStream" -> {
+                try {
+                    yield Files.newInputStream(Path.of(webapp + (String) args[0]));
+                } catch (IOException e) {
+                    yield null;
+                }
+            }
+            default -> null;
+        });
+        return fake(FilterConfig.class, (method, args) ->
+                method.equals("getServletContext") ? servletContext : null);
+    }
+
+    @FunctionalInterface
+    private interface Answer {
+        Object answer(String method, Object[] args);
+    }
+
+    // An implementation of the interface that answers each call by method name
+    private static <T> T fake(Class<T> type, Answer answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> answer.answer(method.getName(), args)));
+    }
+}
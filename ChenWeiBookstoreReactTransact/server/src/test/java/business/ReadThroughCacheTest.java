@@ -0,0 +1,64 @@
+package business;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ReadThroughCacheTest {
+
+    @Test
+    void loadsOnceUntilInvalidated() {
+        ReadThroughCache<Long, String> cache = new ReadThroughCache<>(0);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("a1", cache.get(1L, key -> "a" + loads.incrementAndGet()));
+        assertEquals("a1", cache.get(1L, key -> "a" + loads.incrementAndGet()));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.invalidateAll();
+        assertEquals("a2", cache.get(1L, key -> "a" + loads.incrementAndGet()));
+    }
+
+    @Test
+    void loadOverlappingInvalidationIsNotCached() {
+        ReadThroughCache<Long, String> cache = new ReadThroughCache<>(0);
+
+        String value = cache.get(1L, key -> {
+            cache.invalidateAll();
+            return "old";
+        });
+
+        assertEquals("old", value);
+        assertNull(cache.getIfPresent(1L));
+        assertEquals("new", cache.get(1L, key -> "new"));
+    }
+
+    @Test
+    void bulkLoadOverlappingInvalidationIsNotCached() {
+        ReadThroughCache<Long, String> cache = new ReadThroughCache<>(0);
+
+        cache.getAll(List.of(1L, 2L), keys -> {
+            cache.invalidateAll();
+            return Map.of(1L, "old", 2L, "old");
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void putFromEarlierGenerationIsIgnored() {
+        ReadThroughCache<Long, String> cache = new ReadThroughCache<>(0);
+        long generation = cache.generation();
+        cache.invalidateAll();
+
+        cache.put(1L, "old", generation);
+
+        assertNull(cache.getIfPresent(1L));
+    }
+}
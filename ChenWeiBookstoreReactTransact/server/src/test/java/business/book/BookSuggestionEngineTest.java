@@ -0,0 +1,68 @@
+package business.book;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookSuggestionEngineTest {
+
+    private static final long CATEGORY_ID = 1001;
+
+    @BeforeAll
+    static void useEmbeddedDatabase() {
+        System.setProperty("bookstore.db", "embedded");
+    }
+
+    @Test
+    void samplePositionsAreDistinctAndInRange() {
+        for (int round = 0; round < 100; round++) {
+            int[] positions = BookSuggestionEngine.samplePositions(1_000_000, 5);
+            assertEquals(5, positions.length);
+            Set<Integer> distinct = new HashSet<>();
+            for (int position : positions) {
+                assertTrue(position >= 0 && position < 1_000_000);
+                distinct.add(position);
+            }
+            assertEquals(5, distinct.size());
+        }
+    }
+
+    @Test
+    void samplePositionsCoverEveryPositionWhenCountReachesSize() {
+        int[] positions = BookSuggestionEngine.samplePositions(4, 10);
+        Arrays.sort(positions);
+        assertEquals(List.of(0, 1, 2, 3), Arrays.stream(positions).boxed().toList());
+        assertEquals(0, BookSuggestionEngine.samplePositions(0, 3).length);
+    }
+
+    @Test
+    void suggestionsAreDistinctBooksOfTheCategory() {
+        CachingBookDao bookDao = new CachingBookDao(new BookDaoJdbc(), 0);
+        List<Book> category = bookDao.findByCategoryId(CATEGORY_ID);
+
+        List<Book> suggestions = bookDao.findRandomByCategoryId(CATEGORY_ID, 3);
+
+        assertEquals(Math.min(3, category.size()), suggestions.size());
+        assertEquals(suggestions.size(), new HashSet<>(suggestions).size());
+        assertTrue(category.containsAll(suggestions));
+    }
+
+    @Test
+    void jdbcSuggestionsAreDistinctBooksOfTheCategory() {
+        BookDaoJdbc bookDao = new BookDaoJdbc();
+        List<Book> category = bookDao.findByCategoryId(CATEGORY_ID);
+
+        List<Book> suggestions = bookDao.findRandomByCategoryId(CATEGORY_ID, 3);
+
+        assertEquals(Math.min(3, category.size()), suggestions.size());
+        assertEquals(suggestions.size(), new HashSet<>(suggestions).size());
+        assertTrue(category.containsAll(suggestions));
+    }
+}
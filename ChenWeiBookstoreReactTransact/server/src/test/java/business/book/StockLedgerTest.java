@@ -0,0 +1,125 @@
+package business.book;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockLedgerTest {
+
+    // The book table's stock column, in memory
+    private static final class MemoryStockDao implements StockDao {
+
+        private final Map<Long, Integer> stock = new HashMap<>();
+
+        MemoryStockDao(Map<Long, Integer> stock) {
+            this.stock.putAll(stock);
+        }
+
+        @Override
+        public synchronized Map<Long, Integer> findStock(Collection<Long> bookIds) {
+            Map<Long, Integer> found = new HashMap<>();
+            for (Long bookId : bookIds) {
+                if (stock.containsKey(bookId)) {
+                    found.put(bookId, stock.get(bookId));
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public synchronized void subtract(Map<Long, Integer> quantities) {
+            quantities.forEach((bookId, quantity) -> stock.merge(bookId, -quantity, Integer::sum));
+        }
+
+        @Override
+        public OptionalLong take(Connection connection, Map<Long, Integer> quantities) {
+            throw new UnsupportedOperationException();
+        }
+
+        synchronized int stock(long bookId) {
+            return stock.get(bookId);
+        }
+    }
+
+    @Test
+    void reservesAllOrNothing() {
+        MemoryStockDao stockDao = new MemoryStockDao(Map.of(1L, 5, 2L, 1));
+        StockLedger ledger = new StockLedger(stockDao, 60_000);
+        try {
+            assertEquals(OptionalLong.of(2), ledger.reserve(Map.of(1L, 2, 2L, 2)));
+            assertEquals(OptionalLong.empty(), ledger.reserve(Map.of(1L, 5)));
+            assertEquals(OptionalLong.of(1), ledger.reserve(Map.of(1L, 1)));
+            assertEquals(OptionalLong.of(3), ledger.reserve(Map.of(3L, 1)));
+        } finally {
+            ledger.close();
+        }
+        assertEquals(0, stockDao.stock(1));
+        assertEquals(1, stockDao.stock(2));
+    }
+
+    @Test
+    void releasePutsCopiesBack() {
+        MemoryStockDao stockDao = new MemoryStockDao(Map.of(1L, 3));
+        StockLedger ledger = new StockLedger(stockDao, 60_000);
+        try {
+            assertEquals(OptionalLong.empty(), ledger.reserve(Map.of(1L, 3)));
+            ledger.release(Map.of(1L, 3));
+            ledger.flush();
+            assertEquals(3, stockDao.stock(1));
+            assertEquals(OptionalLong.empty(), ledger.reserve(Map.of(1L, 3)));
+        } finally {
+            ledger.close();
+        }
+        assertEquals(0, stockDao.stock(1));
+    }
+
+    @Test
+    void invalidatingWhileReservingNeverOversells() throws Exception {
+        int copies = 2_000;
+        MemoryStockDao stockDao = new MemoryStockDao(Map.of(1L, copies));
+        StockLedger ledger = new StockLedger(stockDao, 1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService threads = Executors.newFixedThreadPool(5);
+        try {
+            threads.execute(() -> {
+                while (!done.get()) {
+                    ledger.invalidateAll();
+                }
+            });
+            for (int i = 0; i < 4; i++) {
+                threads.execute(() -> {
+                    for (int j = 0; j < copies; j++) {
+                        if (ledger.reserve(Map.of(1L, 1)).isEmpty()) {
+                            sold.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        } finally {
+            Thread.sleep(10);
+            threads.shutdown();
+            while (!threads.awaitTermination(10, TimeUnit.MILLISECONDS)) {
+                if (sold.get() == copies) {
+                    done.set(true);
+                }
+            }
+            ledger.close();
+        }
+
+        assertTrue(sold.get() <= copies);
+        assertEquals(copies - sold.get(), stockDao.stock(1));
+    }
+}
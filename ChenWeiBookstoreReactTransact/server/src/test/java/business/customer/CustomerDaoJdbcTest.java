@@ -0,0 +1,68 @@
+package business.customer;
+
+import business.BookstoreDbException;
+import business.JdbcUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CustomerDaoJdbcTest {
+
+    private static final Date CC_EXP_DATE = java.sql.Date.valueOf("2030-01-01");
+
+    private final CustomerDaoJdbc customerDao = new CustomerDaoJdbc();
+
+    @BeforeAll
+    static void useEmbeddedDatabase() {
+        System.setProperty("bookstore.db", "embedded");
+    }
+
+    @Test
+    void updateGivesAReturningCustomerNewDetails() throws SQLException {
+        String key = CustomerKeys.customerKey("update@example.com", "5715550001");
+        try (Connection connection = JdbcUtils.getConnection()) {
+            customerDao.create(connection, 900_001, key, "Ada", "1 Old Road", "5715550001",
+                    "update@example.com", "4111111111111111", CC_EXP_DATE);
+            customerDao.update(connection, 900_001, key, "Ada", "2 New Road", "5715550001",
+                    "update@example.com", "4111111111111111", CC_EXP_DATE);
+        }
+
+        assertEquals(900_001L, customerDao.findIdByCustomerKey(key));
+        assertEquals("2 New Road", customerDao.findByCustomerId(900_001).address());
+    }
+
+    @Test
+    void updateNeverOverwritesACustomerWithAnotherKey() throws SQLException {
+        String key = CustomerKeys.customerKey("owner@example.com", "5715550002");
+        try (Connection connection = JdbcUtils.getConnection()) {
+            customerDao.create(connection, 900_002, key, "Grace", "3 Own Road", "5715550002",
+                    "owner@example.com", "4111111111111111", CC_EXP_DATE);
+
+            String otherKey = CustomerKeys.customerKey("other@example.com", "5715550003");
+            assertThrows(BookstoreDbException.class, () -> customerDao.update(connection, 900_002, otherKey,
+                    "Mallory", "4 Other Road", "5715550003", "other@example.com", "4111111111111111", CC_EXP_DATE));
+        }
+
+        assertEquals("Grace", customerDao.findByCustomerId(900_002).customerName());
+    }
+
+    @Test
+    void createFailsOnATakenIdInsteadOfOverwriting() throws SQLException {
+        try (Connection connection = JdbcUtils.getConnection()) {
+            customerDao.create(connection, 900_004, CustomerKeys.customerKey("first@example.com", "5715550004"),
+                    "Linus", "5 First Road", "5715550004", "first@example.com", "4111111111111111", CC_EXP_DATE);
+
+            assertThrows(BookstoreDbException.class, () -> customerDao.create(connection, 900_004,
+                    CustomerKeys.customerKey("second@example.com", "5715550005"),
+                    "Ken", "6 Second Road", "5715550005", "second@example.com", "4111111111111111", CC_EXP_DATE));
+        }
+
+        assertEquals("Linus", customerDao.findByCustomerId(900_004).customerName());
+    }
+}
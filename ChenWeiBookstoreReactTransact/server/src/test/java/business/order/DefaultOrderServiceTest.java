@@ -0,0 +1,158 @@
+package business.order;
+
+import api.ApiException;
+import business.JdbcUtils;
+import business.book.BookDaoJdbc;
+import business.book.StockDaoJdbc;
+import business.customer.CustomerDaoJdbc;
+import business.customer.CustomerForm;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultOrderServiceTest {
+
+    @BeforeAll
+    static void useEmbeddedDatabase() {
+        System.setProperty("bookstore.db", "embedded");
+    }
+
+    @Test
+    void confirmationNumbersAreDistinct() {
+        Set<Integer> confirmationNumbers = new HashSet<>();
+        for (long orderId = 1; orderId <= 100_000; orderId++) {
+            int confirmationNumber = DefaultOrderService.confirmationNumber(orderId);
+            assertTrue(confirmationNumber >= 0 && confirmationNumber < 1_000_000_000);
+            assertTrue(confirmationNumbers.add(confirmationNumber), "repeated for order " + orderId);
+        }
+    }
+
+    @Test
+    void confirmationNumberMapsBackToItsOrderId() {
+        // The inverse migration.sql uses to find the order id a number belongs to
+        for (long orderId : new long[] {1, 2, 1001, 123_456_789, 999_999_999}) {
+            long confirmationNumber = DefaultOrderService.confirmationNumber(orderId);
+            assertEquals(orderId, (confirmationNumber + 1_000_000_000 - 275_604_541) % 1_000_000_000
+                    * 513_180_409 % 1_000_000_000);
+        }
+    }
+
+    @Test
+    void returningCustomerKeepsTheirIdWithoutTakingANewOne() {
+        DefaultOrderService orderService = TestOrders.orderService();
+        CustomerForm customer = TestOrders.customerForm("returning@example.com");
+
+        long firstOrderId = orderService.placeOrder(customer, TestOrders.cart(1));
+        long secondOrderId = orderService.placeOrder(customer, TestOrders.cart(1));
+        long otherOrderId = orderService.placeOrder(TestOrders.customerForm("new@example.com"), TestOrders.cart(1));
+
+        long customerId = orderService.getOrderDetails(firstOrderId).customer().customerId();
+        assertEquals(customerId, orderService.getOrderDetails(secondOrderId).customer().customerId());
+        // Ids come from one block, so the next new customer gets the very next id
+        assertEquals(customerId + 1, orderService.getOrderDetails(otherOrderId).customer().customerId());
+    }
+
+    @Test
+    void pastOrdersKeepTheDetailsTheyWerePlacedWith() {
+        DefaultOrderService orderService = TestOrders.orderService();
+        CustomerForm customer = TestOrders.customerForm("moved@example.com");
+        long firstOrderId = orderService.placeOrder(customer, TestOrders.cart(1));
+        customer.setAddress("1 New Street");
+        long secondOrderId = orderService.placeOrder(customer, TestOrders.cart(1));
+
+        OrderDetails first = new OrderDetailsDaoJdbc().findByOrderId(firstOrderId);
+        OrderDetails second = new OrderDetailsDaoJdbc().findByOrderId(secondOrderId);
+
+        assertEquals("2251 Pimmit Drive", first.customer().address());
+        assertEquals("1 New Street", second.customer().address());
+        assertEquals(first.customer().customerId(), second.customer().customerId());
+        assertEquals("1 New Street",
+                new CustomerDaoJdbc().findByCustomerId(first.customer().customerId()).address());
+    }
+
+    @Test
+    void orderLargerThanTheStockIsRejectedAndTakesNothing() throws SQLException {
+        DefaultOrderService orderService = TestOrders.orderService();
+        orderService.setStockDao(new StockDaoJdbc());
+        long bookId = new BookDaoJdbc().findByCategoryId(1001).get(0).bookId();
+        setStock(bookId, 3);
+        try {
+            orderService.placeOrder(TestOrders.customerForm("stock@example.com"), TestOrders.cart(2));
+
+            ApiException.ValidationFailure failure = assertThrows(ApiException.ValidationFailure.class,
+                    () -> orderService.placeOrder(TestOrders.customerForm("stock@example.com"), TestOrders.cart(2)));
+            assertEquals("stock", failure.getFieldName());
+            assertEquals(Map.of(bookId, 1), new StockDaoJdbc().findStock(List.of(bookId)));
+        } finally {
+            setStock(bookId, 100);
+        }
+    }
+
+    @Test
+    void keyedOrderIsPlacedOnceAndItsKeyNotReusedForAnother() {
+        DefaultOrderService orderService = TestOrders.orderService();
+        CustomerForm customer = TestOrders.customerForm("keyed@example.com");
+
+        long orderId = orderService.placeOrder(customer, TestOrders.cart(1), "service-key", null);
+
+        assertEquals(orderId, orderService.placeOrder(customer, TestOrders.cart(1), "service-key", null));
+        assertThrows(ApiException.IdempotencyKeyReused.class,
+                () -> orderService.placeOrder(customer, TestOrders.cart(2), "service-key", null));
+    }
+
+    @Test
+    void keyReusedWithinOneGroupCommitBatchIsRejected() throws Exception {
+        DefaultOrderService orderService = TestOrders.orderService();
+        GroupCommitOrderWriter orderWriter = new GroupCommitOrderWriter(2, 1_000, 2, 10_000);
+        orderService.setOrderWriter(orderWriter);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            // Different customers, so neither waits for the other's customer lock
+            List<Callable<Object>> orders = List.of(
+                    () -> placeOrReject(orderService, "batch-first@example.com"),
+                    () -> placeOrReject(orderService, "batch-second@example.com"));
+            Set<Object> outcomes = new HashSet<>();
+            for (Future<Object> outcome : callers.invokeAll(orders)) {
+                outcomes.add(outcome.get() instanceof Long ? Long.class : outcome.get());
+            }
+
+            assertEquals(Set.of(Long.class, ApiException.IdempotencyKeyReused.class), outcomes);
+        } finally {
+            callers.shutdown();
+            orderWriter.close();
+        }
+    }
+
+    private static Object placeOrReject(DefaultOrderService orderService, String email) {
+        try {
+            return orderService.placeOrder(TestOrders.customerForm(email), TestOrders.cart(1), "batch-key", null);
+        } catch (ApiException e) {
+            return e.getClass();
+        }
+    }
+
+    private static void setStock(long bookId, int stock) throws SQLException {
+        try (Connection connection = JdbcUtils.getConnection();
+             PreparedStatement statement = connection.prepareStatement("UPDATE book SET stock = ? WHERE book_id = ?")) {
+            statement.setInt(1, stock);
+            statement.setLong(2, bookId);
+            statement.executeUpdate();
+            connection.commit();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package business.order;
+
+import business.JdbcUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GroupCommitOrderWriterTest {
+
+    private GroupCommitOrderWriter writer;
+
+    @BeforeAll
+    static void createTable() throws SQLException {
+        System.setProperty("bookstore.db", "embedded");
+        try (Connection connection = JdbcUtils.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS group_commit_test (id BIGINT PRIMARY KEY)");
+        }
+    }
+
+    @BeforeEach
+    void startWriter() throws SQLException {
+        try (Connection connection = JdbcUtils.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM group_commit_test");
+        }
+        writer = new GroupCommitOrderWriter(4, 50, 4, 10_000);
+    }
+
+    @AfterEach
+    void closeWriter() {
+        writer.close();
+    }
+
+    @Test
+    void failedOrderIsRolledBackAloneInItsBatch() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            results.add(callers.submit(() -> writer.write(connection -> insert(connection, 1))));
+            results.add(callers.submit(() -> writer.write(connection -> {
+                insert(connection, 2);
+                throw new IllegalStateException("out of stock");
+            })));
+            results.add(callers.submit(() -> writer.write(connection -> insert(connection, 3))));
+
+            assertEquals(1L, results.get(0).get());
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> results.get(1).get());
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+            assertEquals(3L, results.get(2).get());
+        } finally {
+            callers.shutdown();
+        }
+
+        assertEquals(List.of(1L, 3L), committedIds());
+    }
+
+    @Test
+    void orderFailingOnTheDatabaseLeavesTheOthersCommitted() throws Exception {
+        assertEquals(1L, writer.write(connection -> insert(connection, 1)));
+
+        // A duplicate primary key fails inside its savepoint
+        assertThrows(IllegalStateException.class, () -> writer.write(connection -> insert(connection, 1)));
+        assertEquals(2L, writer.write(connection -> insert(connection, 2)));
+
+        assertEquals(List.of(1L, 2L), committedIds());
+    }
+
+    @Test
+    void failedOrderSeesWhatItsBatchCommitted() throws Exception {
+        // Two orders for the same row, sent together so they share a batch: the one
+        // that fails is told only after the other is committed
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Callable<List<Long>> sameRow = () -> {
+                try {
+                    writer.write(connection -> insert(connection, 5));
+                    return null;
+                } catch (IllegalStateException e) {
+                    return committedIds();
+                }
+            };
+            List<List<Long>> seen = new ArrayList<>();
+            for (Future<List<Long>> result : callers.invokeAll(List.of(sameRow, sameRow))) {
+                if (result.get() != null) {
+                    seen.add(result.get());
+                }
+            }
+
+            assertEquals(List.of(List.of(5L)), seen);
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    private static long insert(Connection connection, long id) {
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO group_commit_test (id) VALUES (?)")) {
+            statement.setLong(1, id);
+            statement.executeUpdate();
+            return id;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Long> committedIds() throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Connection connection = JdbcUtils.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT id FROM group_commit_test ORDER BY id")) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getLong(1));
+            }
+        }
+        return ids;
+    }
+}
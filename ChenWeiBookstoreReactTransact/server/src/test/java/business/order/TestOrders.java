@@ -0,0 +1,62 @@
+package business.order;
+
+import business.IdAllocator;
+import business.book.Book;
+import business.book.BookDaoJdbc;
+import business.book.BookForm;
+import business.cart.ShoppingCart;
+import business.cart.ShoppingCartItem;
+import business.customer.CustomerDaoJdbc;
+import business.customer.CustomerForm;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Valid order input for the tests, built from the books in the embedded database.
+ */
+final class TestOrders {
+
+    private TestOrders() {
+    }
+
+    static CustomerForm customerForm(String email) {
+        YearMonth expiry = YearMonth.now().plusYears(2);
+        return new CustomerForm("Sophia Chen", "2251 Pimmit Drive", "(571) 594-7580",
+                email, "4111 1111 1111 1111",
+                String.valueOf(expiry.getMonthValue()), String.valueOf(expiry.getYear()));
+    }
+
+    /**
+     * A cart with the given number of copies of the first book in the catalog.
+     */
+    static ShoppingCart cart(int quantity) {
+        Book book = new BookDaoJdbc().findByCategoryId(1001).get(0);
+        BookForm bookForm = new BookForm();
+        bookForm.setBookId(book.bookId());
+        bookForm.setPrice(book.price());
+        bookForm.setCategoryId(book.categoryId());
+        ShoppingCartItem item = new ShoppingCartItem();
+        item.setBookForm(bookForm);
+        item.setQuantity(quantity);
+        List<ShoppingCartItem> items = new ArrayList<>();
+        items.add(item);
+        ShoppingCart cart = new ShoppingCart();
+        cart.setItems(items);
+        return cart;
+    }
+
+    static DefaultOrderService orderService() {
+        DefaultOrderService orderService = new DefaultOrderService();
+        orderService.setBookDao(new BookDaoJdbc());
+        orderService.setCustomerDao(new CustomerDaoJdbc());
+        orderService.setOrderDao(new OrderDaoJdbc());
+        orderService.setLineItemDao(new LineItemDaoJdbc());
+        orderService.setOrderDetailsDao(new OrderDetailsDaoJdbc());
+        orderService.setIdempotencyKeyDao(new IdempotencyKeyDaoJdbc());
+        orderService.setCustomerIdAllocator(new IdAllocator("customer", "customer_id", 100));
+        orderService.setOrderIdAllocator(new IdAllocator("customer_order", "customer_order_id", 100));
+        return orderService;
+    }
+}